@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.3.3"
     id("io.spring.dependency-management") version "1.1.6"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.github.dougmab"
@@ -23,6 +24,12 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("org.springframework.boot:spring-boot-starter-oauth2-resource-server")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.springframework.boot:spring-boot-starter-cache")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+    implementation("org.hibernate.orm:hibernate-jcache")
+    implementation("org.hibernate.orm:hibernate-micrometer")
+    implementation("com.github.ben-manes.caffeine:jcache")
     testImplementation("org.springframework.security:spring-security-test")
     developmentOnly("org.springframework.boot:spring-boot-devtools")
     runtimeOnly("com.h2database:h2")
@@ -34,3 +41,10 @@ dependencies {
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+jmh {
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    jvmArgs = listOf("-Xms4g", "-Xmx4g")
+}
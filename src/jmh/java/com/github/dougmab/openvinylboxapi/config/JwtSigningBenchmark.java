@@ -0,0 +1,67 @@
+package com.github.dougmab.openvinylboxapi.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of signing a login token and of verifying it, per signing algorithm of {@link JwtKeyRing}.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtSigningBenchmark {
+
+    @Param({"RS256", "ES256"})
+    private String algorithm;
+
+    private JwtEncoder encoder;
+    private JwtDecoder decoder;
+    private JwtEncoderParameters parameters;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JOSEException {
+        JwtKeyRing keyRing = new JwtKeyRing(algorithm, new RSAKeyGenerator(2048).generate(), false, 7_200_000);
+        encoder = keyRing.createEncoder();
+        decoder = keyRing.createDecoder();
+
+        Instant now = Instant.now();
+        parameters = JwtEncoderParameters.from(JwtClaimsSet.builder()
+                .issuer("open-vinyl-box-api")
+                .subject("1")
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(3600))
+                .claim("scope", "USER")
+                .build());
+        token = encoder.encode(parameters).getTokenValue();
+    }
+
+    @Benchmark
+    public Jwt sign() {
+        return encoder.encode(parameters);
+    }
+
+    @Benchmark
+    public Jwt verify() {
+        return decoder.decode(token);
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the product search index over a synthetic catalog.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InvertedIndexBenchmark {
+
+    private static final String[] CATEGORIES = {
+            "Jazz", "Pop", "Rock", "Chill", "Rap", "Classical", "Country", "Blues", "Reggae", "Electronic", "Metal", "Alternative"
+    };
+
+    @Param({"100000", "1000000"})
+    private int products;
+
+    private InvertedIndex index;
+    private String[] vocabulary;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+
+        // Zipf-like word frequencies, a few very common words and a long tail of rare ones
+        vocabulary = new String[20_000];
+        for (int i = 0; i < vocabulary.length; i++) vocabulary[i] = word(random, 3 + random.nextInt(7));
+
+        index = new InvertedIndex();
+        for (int id = 1; id <= products; id++) {
+            StringBuilder name = new StringBuilder();
+            int words = 2 + random.nextInt(4);
+            for (int w = 0; w < words; w++) name.append(skewedWord(random)).append(' ');
+
+            index.put(id, name.toString(), List.of(CATEGORIES[random.nextInt(CATEGORIES.length)]));
+        }
+    }
+
+    @Benchmark
+    public SearchHits commonTerm() {
+        return index.search(vocabulary[0], 0, 20);
+    }
+
+    @Benchmark
+    public SearchHits rareTerm() {
+        return index.search(vocabulary[vocabulary.length - 1], 0, 20);
+    }
+
+    @Benchmark
+    public SearchHits termAndCategory() {
+        return index.search(vocabulary[10] + " rock", 0, 20);
+    }
+
+    @Benchmark
+    public SearchHits prefix() {
+        return index.search(vocabulary[100].substring(0, 2), 0, 20);
+    }
+
+    @Benchmark
+    public SearchHits deepPage() {
+        return index.search(vocabulary[1], 1_000, 20);
+    }
+
+    private String skewedWord(Random random) {
+        double u = random.nextDouble();
+        return vocabulary[(int) (vocabulary.length * u * u * u)];
+    }
+
+    private static String word(Random random, int length) {
+        char[] letters = new char[length];
+        for (int i = 0; i < length; i++) letters[i] = (char) ('a' + random.nextInt(26));
+        return new String(letters);
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of keeping the suggestion trie up to date when many products share a key, as every product of a
+ * category shares its name.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SuggestionTrieBenchmark {
+
+    private static final String[] CATEGORIES = {
+            "jazz", "pop", "rock", "chill", "rap", "classical", "country", "blues", "reggae", "electronic", "metal", "alternative"
+    };
+
+    @Param({"100000", "1000000"})
+    private int products;
+
+    private int[] scores;
+    private SuggestionTrie trie;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+
+        scores = new int[products];
+        for (int id = 0; id < products; id++) scores[id] = random.nextInt(10_000);
+
+        trie = new SuggestionTrie(10, (first, second) -> {
+            int byScore = Integer.compare(scores[second], scores[first]);
+            return byScore != 0 ? byScore : Integer.compare(first, second);
+        });
+        for (int id = 0; id < products; id++) trie.add(CATEGORIES[id % CATEGORIES.length], id);
+    }
+
+    /**
+     * Removes a product from the key shared by a twelfth of the catalog and puts it back.
+     */
+    @Benchmark
+    public int[] removeAndAddSharedKey() {
+        int id = next;
+        next = (next + 1) % products;
+
+        String category = CATEGORIES[id % CATEGORIES.length];
+        trie.remove(category, id);
+        trie.add(category, id);
+        return trie.top(category);
+    }
+
+    @Benchmark
+    public int[] topOfSharedKey() {
+        return trie.top("ja");
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.dougmab.openvinylboxapi.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Application level caches of assembled responses. Caching runs outside the transaction advice,
+ * so entries are evicted only after the change that invalidates them has committed.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    public static final String PRODUCT_DETAILS = "productDetails";
+    public static final String PRODUCT_VERSIONS = "productVersions";
+    public static final String USER_CREDENTIALS = "userCredentials";
+
+    @Value("${app.cache.product-details.max-weight:33554432}")
+    private long productDetailsMaxWeight;
+    @Value("${app.cache.product-details.time-to-live:10m}")
+    private Duration productDetailsTimeToLive;
+    @Value("${app.cache.product-versions.max-size:100000}")
+    private long productVersionsMaxSize;
+    @Value("${app.cache.user-credentials.max-size:10000}")
+    private long userCredentialsMaxSize;
+    @Value("${app.cache.user-credentials.time-to-live:5m}")
+    private Duration userCredentialsTimeToLive;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return name.equals(PRODUCT_DETAILS) ? new ProductDetailsCache(cache) : super.adaptCaffeineCache(name, cache);
+            }
+        };
+        cacheManager.setAllowNullValues(false);
+
+        cacheManager.registerCustomCache(PRODUCT_DETAILS, Caffeine.newBuilder()
+                .maximumWeight(productDetailsMaxWeight)
+                .weigher((Object id, Object product) -> estimateSize((ProductDTO) product))
+                .expireAfterWrite(productDetailsTimeToLive)
+                .recordStats()
+                .build());
+
+        // Evicted together with product details, so revalidating a product never touches the database either
+        cacheManager.registerCustomCache(PRODUCT_VERSIONS, Caffeine.newBuilder()
+                .maximumSize(productVersionsMaxSize)
+                .expireAfterWrite(productDetailsTimeToLive)
+                .recordStats()
+                .build());
+
+        // Short-lived, changes made through another instance are only seen once entries expire
+        cacheManager.registerCustomCache(USER_CREDENTIALS, Caffeine.newBuilder()
+                .maximumSize(userCredentialsMaxSize)
+                .expireAfterWrite(userCredentialsTimeToLive)
+                .recordStats()
+                .build());
+
+        return cacheManager;
+    }
+
+    /**
+     * Evicts the cached details and versions of the products, for changes made outside the cache
+     * annotations. Call it once the change has committed, so the old state can't be cached again.
+     */
+    public static void evictProducts(CacheManager cacheManager, Collection<Long> productIds) {
+        for (String cacheName : new String[] { PRODUCT_DETAILS, PRODUCT_VERSIONS }) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) productIds.forEach(cache::evict);
+        }
+    }
+
+    /**
+     * Stores and hands out copies of the products, so a caller changing the one it got can't change
+     * what every later caller gets.
+     */
+    private static class ProductDetailsCache extends CaffeineCache {
+
+        private ProductDetailsCache(com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+            super(PRODUCT_DETAILS, cache, false);
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            Object product = super.lookup(key);
+            return product == null ? null : new ProductDTO((ProductDTO) product);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            super.put(key, new ProductDTO((ProductDTO) value));
+        }
+    }
+
+    /**
+     * Rough size in bytes, good enough to keep products with many categories from crowding out the rest
+     */
+    private static int estimateSize(ProductDTO product) {
+        int size = 512;
+        size += 2 * (product.getName() == null ? 0 : product.getName().length());
+        size += 2 * (product.getImgUrl() == null ? 0 : product.getImgUrl().length());
+        size += 96 * product.getCategories().size();
+        return size;
+    }
+}
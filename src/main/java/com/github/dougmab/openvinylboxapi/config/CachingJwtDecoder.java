@@ -0,0 +1,101 @@
+package com.github.dougmab.openvinylboxapi.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * {@link JwtDecoder} that remembers the tokens it already verified, so a client sending the same token
+ * on every request pays for parsing and checking its signature once.
+ * <p>
+ * Entries are keyed by the SHA-256 of the token and dropped when it expires, or earlier when more than
+ * {@code maxSize} tokens are in use. Tokens that fail to decode are never cached and fail again every time.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Cache<String, Jwt> cache;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maxSize) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilExpiresAt())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Publishes hit rate, size and evictions of the cache as the {@code cache.*} meters of the {@code jwt} cache.
+     */
+    public CachingJwtDecoder bindTo(MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt");
+        return this;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = hash(token);
+
+        Jwt jwt = cache.getIfPresent(key);
+        if (jwt == null) {
+            // Not computed inside the cache, a failure has to reach the caller as is
+            jwt = delegate.decode(token);
+            cache.put(key, jwt);
+        }
+        return jwt;
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class UntilExpiresAt implements Expiry<String, Jwt> {
+
+        // Tokens without expiration, or a far one, are verified again after a while anyway
+        private static final Duration MAX_TIME_TO_LIVE = Duration.ofHours(1);
+
+        @Override
+        public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+            Instant expiresAt = jwt.getExpiresAt();
+            if (expiresAt == null) return MAX_TIME_TO_LIVE.toNanos();
+
+            Duration timeToLive = Duration.between(Instant.now(), expiresAt);
+            if (timeToLive.isNegative()) return 0;
+            return timeToLive.compareTo(MAX_TIME_TO_LIVE) > 0 ? MAX_TIME_TO_LIVE.toNanos() : timeToLive.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
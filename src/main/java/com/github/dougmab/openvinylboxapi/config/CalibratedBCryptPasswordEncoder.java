@@ -0,0 +1,83 @@
+package com.github.dougmab.openvinylboxapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BCryptPasswordEncoder} that wants hashes of a weaker cost re-encoded as their users log in. With
+ * {@code downgrade} it wants hashes of any other cost re-encoded, so lowering the cost also applies to
+ * existing passwords.
+ * <p>
+ * The cost is either fixed or {@link #calibrate calibrated} on startup. Instances calibrated on different
+ * hosts can pick different costs, so a cluster of mixed hosts should fix it instead, and never downgrade
+ * with calibration, or instances keep re-encoding each other's hashes.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+
+    private static final Pattern COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final int strength;
+    private final boolean downgrade;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        this(strength, false);
+    }
+
+    public CalibratedBCryptPasswordEncoder(int strength, boolean downgrade) {
+        super(strength);
+        this.strength = strength;
+        this.downgrade = downgrade;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) return false;
+
+        Matcher matcher = COST.matcher(encodedPassword);
+        // Not a BCrypt hash, it can't match any password either
+        if (!matcher.find()) return false;
+
+        int cost = Integer.parseInt(matcher.group(1));
+        return downgrade ? cost != strength : cost < strength;
+    }
+
+    /**
+     * Picks the highest cost, between {@code minStrength} and {@code maxStrength}, whose hash takes at most
+     * {@code targetMillis} on this host. Each cost doubles the time of the previous one, so the costs are
+     * measured from the lowest up until the next one would be over the target.
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(long targetMillis, int minStrength, int maxStrength) {
+        // Warms up the JIT, the first hashes are several times slower than the following ones
+        new BCryptPasswordEncoder(4).encode("calibration");
+
+        int strength = minStrength;
+        long millis = timeOf(strength);
+        while (strength < maxStrength && millis * 2 <= targetMillis) {
+            long next = timeOf(strength + 1);
+            if (next > targetMillis) break;
+
+            strength++;
+            millis = next;
+        }
+
+        logger.info("Calibrated BCrypt cost to {}, {} ms per hash for a target of {} ms", strength, millis, targetMillis);
+        return new CalibratedBCryptPasswordEncoder(strength);
+    }
+
+    private static long timeOf(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long start = System.nanoTime();
+        encoder.encode("calibration");
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
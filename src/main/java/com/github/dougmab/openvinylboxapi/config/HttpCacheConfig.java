@@ -0,0 +1,21 @@
+package com.github.dougmab.openvinylboxapi.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class HttpCacheConfig {
+
+    /**
+     * Listings have no cheap version to compare, so their ETag is a hash of the body. It doesn't save
+     * the work of building the page, but unchanged pages are sent to clients as an empty 304.
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> listingEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/product", "/category");
+        return registration;
+    }
+}
@@ -0,0 +1,210 @@
+package com.github.dougmab.openvinylboxapi.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keys the tokens are signed and verified with. One key signs, identified by the {@code kid} header of
+ * its tokens, and the keys it replaced keep verifying for {@code retiredKeyTtlMillis}, which must be longer
+ * than the lifetime of a token.
+ * <p>
+ * Tokens are signed with RS256 or ES256. Until the first rotation, the RSA key from {@code jwt.private.key}
+ * signs with RS256 and the EC key from {@code jwt.ec.private.key} with ES256, so every instance and restart
+ * verifies the tokens of the others. Keys are only generated in memory by rotations, whose tokens a restart
+ * or another instance can't verify, so rotation is meant for a single instance.
+ */
+public class JwtKeyRing implements JWKSource<SecurityContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    public static final Set<JWSAlgorithm> ALGORITHMS = Set.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256);
+
+    private final JWSAlgorithm algorithm;
+    private final boolean rotationEnabled;
+    private final long retiredKeyTtlMillis;
+
+    private volatile JWK signingKey;
+    private volatile List<RetiredKey> retiredKeys = List.of();
+
+    /**
+     * @param configuredEcKey The key signing ES256 tokens, may be null when RS256 is used
+     */
+    public JwtKeyRing(String algorithm, RSAKey configuredKey, ECKey configuredEcKey, boolean rotationEnabled, long retiredKeyTtlMillis) {
+        this.algorithm = JWSAlgorithm.parse(algorithm);
+        if (!ALGORITHMS.contains(this.algorithm))
+            throw new IllegalArgumentException("Token signing algorithm must be one of " + ALGORITHMS + ", not " + algorithm);
+
+        this.rotationEnabled = rotationEnabled;
+        this.retiredKeyTtlMillis = retiredKeyTtlMillis;
+
+        JWK key = withKeyId(configuredKey);
+        if (this.algorithm.equals(JWSAlgorithm.RS256)) {
+            signingKey = key;
+        } else {
+            if (configuredEcKey == null)
+                throw new IllegalArgumentException("ES256 tokens need a configured EC key");
+
+            signingKey = withKeyId(configuredEcKey);
+            // Tokens signed before switching algorithm stay valid until they expire
+            retiredKeys = List.of(new RetiredKey(key, System.currentTimeMillis()));
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.jwt.signing.rotation-interval-ms:86400000}",
+            fixedDelayString = "${app.jwt.signing.rotation-interval-ms:86400000}")
+    public void scheduledRotate() {
+        if (rotationEnabled) rotate();
+    }
+
+    /**
+     * Signs with a new key from now on, the previous one only verifies.
+     */
+    public synchronized void rotate() {
+        JWK next = generate();
+        long now = System.currentTimeMillis();
+
+        List<RetiredKey> retired = new ArrayList<>(liveRetiredKeys(now));
+        retired.add(new RetiredKey(signingKey, now));
+        retiredKeys = List.copyOf(retired);
+        signingKey = next;
+
+        logger.info("Rotated token signing key to {}, {} retired keys still verify", next.getKeyID(), retired.size());
+    }
+
+    public JWK getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * The keys that verify tokens, without their private parts.
+     */
+    public JWKSet getPublicKeys() {
+        return keySet().toPublicJWKSet();
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+        return jwkSelector.select(keySet());
+    }
+
+    /**
+     * Encoder signing with the current key, regardless of the header it's given.
+     */
+    public JwtEncoder createEncoder() {
+        NimbusJwtEncoder encoder = new NimbusJwtEncoder(this);
+
+        return parameters -> {
+            JWK key = signingKey;
+            JwsHeader header = JwsHeader.with(SignatureAlgorithm.from(key.getAlgorithm().getName()))
+                    .keyId(key.getKeyID())
+                    .build();
+            return encoder.encode(JwtEncoderParameters.from(header, parameters.getClaims()));
+        };
+    }
+
+    /**
+     * Decoder verifying with the key named by the {@code kid} of the token, any of them when it has none.
+     */
+    public JwtDecoder createDecoder() {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(ALGORITHMS, this));
+        // Claims are validated by the decoder
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        return new NimbusJwtDecoder(processor);
+    }
+
+    private JWKSet keySet() {
+        List<JWK> keys = new ArrayList<>();
+        keys.add(signingKey);
+        liveRetiredKeys(System.currentTimeMillis()).forEach(retired -> keys.add(retired.key()));
+        return new JWKSet(keys);
+    }
+
+    private List<RetiredKey> liveRetiredKeys(long now) {
+        return retiredKeys.stream().filter(retired -> now - retired.retiredAt() < retiredKeyTtlMillis).toList();
+    }
+
+    private JWK generate() {
+        String keyId = UUID.randomUUID().toString();
+        try {
+            if (algorithm.equals(JWSAlgorithm.ES256)) {
+                return new ECKeyGenerator(Curve.P_256)
+                        .keyID(keyId)
+                        .keyUse(KeyUse.SIGNATURE)
+                        .algorithm(algorithm)
+                        .issueTime(new Date())
+                        .generate();
+            }
+
+            return new RSAKeyGenerator(RSAKeyGenerator.MIN_KEY_SIZE_BITS)
+                    .keyID(keyId)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(algorithm)
+                    .issueTime(new Date())
+                    .generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not generate a " + algorithm + " signing key", e);
+        }
+    }
+
+    private static JWK withKeyId(RSAKey key) {
+        try {
+            return new RSAKey.Builder(key)
+                    .keyID(key.computeThumbprint().toString())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.RS256)
+                    .build();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not compute the id of the configured signing key", e);
+        }
+    }
+
+    private static JWK withKeyId(ECKey key) {
+        if (!Curve.P_256.equals(key.getCurve()))
+            throw new IllegalArgumentException("ES256 tokens need a P-256 key, not " + key.getCurve());
+
+        try {
+            return new ECKey.Builder(key)
+                    .keyID(key.computeThumbprint().toString())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.ES256)
+                    .build();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not compute the id of the configured signing key", e);
+        }
+    }
+
+    private record RetiredKey(JWK key, long retiredAt) {
+    }
+}
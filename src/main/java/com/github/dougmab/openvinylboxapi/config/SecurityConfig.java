@@ -1,12 +1,14 @@
 package com.github.dougmab.openvinylboxapi.config;
 
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
 import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -18,12 +20,19 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
 
 @Configuration
 @EnableWebSecurity
@@ -34,6 +43,30 @@ public class SecurityConfig {
     private RSAPublicKey publicKey;
     @Value("${jwt.private.key}")
     private RSAPrivateKey privateKey;
+    @Value("${jwt.ec.public.key:#{null}}")
+    private Resource ecPublicKey;
+    @Value("${jwt.ec.private.key:#{null}}")
+    private Resource ecPrivateKey;
+    @Value("${app.jwt.signing.algorithm:RS256}")
+    private String jwtSigningAlgorithm;
+    @Value("${app.jwt.signing.rotation.enabled:false}")
+    private boolean jwtKeyRotation;
+    @Value("${app.jwt.signing.retired-key-ttl-ms:7200000}")
+    private long jwtRetiredKeyTtlMillis;
+    @Value("${app.jwt.decoder-cache.max-size:10000}")
+    private long jwtDecoderCacheMaxSize;
+    @Value("${app.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    @Value("${app.password.bcrypt-downgrade:false}")
+    private boolean bcryptDowngrade;
+    @Value("${app.password.bcrypt-calibration.enabled:false}")
+    private boolean bcryptCalibration;
+    @Value("${app.password.bcrypt-calibration.target-ms:250}")
+    private long bcryptTargetMillis;
+    @Value("${app.password.bcrypt-calibration.min-strength:10}")
+    private int bcryptMinStrength;
+    @Value("${app.password.bcrypt-calibration.max-strength:14}")
+    private int bcryptMaxStrength;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity httpRequest) throws Exception {
@@ -42,9 +75,14 @@ public class SecurityConfig {
                         request
                                 .requestMatchers("/h2-console/**").permitAll()
                                 .requestMatchers(HttpMethod.POST, "/login").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
                                 .requestMatchers(HttpMethod.POST, "/user").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/product").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/product/search").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/product/suggest").permitAll()
                                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                                .requestMatchers("/actuator/health").permitAll()
+                                .requestMatchers("/actuator/**").hasAuthority("SCOPE_ADMIN")
                                 .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
@@ -58,20 +96,52 @@ public class SecurityConfig {
     }
 
     @Bean
-    public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey(publicKey).build();
+    public JwtKeyRing jwtKeyRing() throws IOException, GeneralSecurityException {
+        RSAKey configuredKey = new RSAKey.Builder(this.publicKey).privateKey(this.privateKey).build();
+
+        return new JwtKeyRing(jwtSigningAlgorithm, configuredKey, configuredEcKey(), jwtKeyRotation, jwtRetiredKeyTtlMillis);
     }
 
     @Bean
-    public JwtEncoder jwtEncoder() {
-        JWK jwk = new RSAKey.Builder(this.publicKey).privateKey(this.privateKey).build();
-        var jwks = new ImmutableJWKSet<>(new JWKSet(jwk));
+    public JwtDecoder jwtDecoder(JwtKeyRing keyRing, ObjectProvider<MeterRegistry> meterRegistry) {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(keyRing.createDecoder(), jwtDecoderCacheMaxSize);
+        meterRegistry.ifAvailable(decoder::bindTo);
+
+        return decoder;
+    }
 
-        return new NimbusJwtEncoder(jwks);
+    @Bean
+    public JwtEncoder jwtEncoder(JwtKeyRing keyRing) {
+        return keyRing.createEncoder();
     }
 
     @Bean
     public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        if (bcryptCalibration) {
+            return CalibratedBCryptPasswordEncoder.calibrate(bcryptTargetMillis, bcryptMinStrength, bcryptMaxStrength);
+        }
+
+        return new CalibratedBCryptPasswordEncoder(bcryptStrength, bcryptDowngrade);
+    }
+
+    /**
+     * The key pair from {@code jwt.ec.public.key} and {@code jwt.ec.private.key}, X.509 and PKCS#8 PEM files
+     * like the RSA ones, or null when they are not set.
+     */
+    private ECKey configuredEcKey() throws IOException, GeneralSecurityException {
+        if (ecPublicKey == null && ecPrivateKey == null) return null;
+        if (ecPublicKey == null || ecPrivateKey == null)
+            throw new IllegalStateException("jwt.ec.public.key and jwt.ec.private.key must be set together");
+
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        ECPublicKey ecPublic = (ECPublicKey) keyFactory.generatePublic(new X509EncodedKeySpec(readPem(ecPublicKey)));
+        ECPrivateKey ecPrivate = (ECPrivateKey) keyFactory.generatePrivate(new PKCS8EncodedKeySpec(readPem(ecPrivateKey)));
+
+        return new ECKey.Builder(Curve.forECParameterSpec(ecPublic.getParams()), ecPublic).privateKey(ecPrivate).build();
+    }
+
+    private static byte[] readPem(Resource resource) throws IOException {
+        String pem = resource.getContentAsString(StandardCharsets.US_ASCII);
+        return Base64.getMimeDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", ""));
     }
 }
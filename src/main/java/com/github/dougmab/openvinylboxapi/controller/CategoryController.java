@@ -1,16 +1,25 @@
 package com.github.dougmab.openvinylboxapi.controller;
 
 import com.github.dougmab.openvinylboxapi.dto.CategoryDTO;
+import com.github.dougmab.openvinylboxapi.dto.CategoryRatingStatisticsDTO;
+import com.github.dougmab.openvinylboxapi.dto.DiscountCampaignReportDTO;
+import com.github.dougmab.openvinylboxapi.dto.DiscountDTO;
+import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
 import com.github.dougmab.openvinylboxapi.payload.ApiResponse;
 import com.github.dougmab.openvinylboxapi.service.CategoryService;
+import com.github.dougmab.openvinylboxapi.service.CategoryStatisticsService;
+import com.github.dougmab.openvinylboxapi.service.ProductService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
@@ -21,9 +30,13 @@ import java.net.URI;
 public class CategoryController {
 
     private final CategoryService service;
+    private final ProductService productService;
+    private final CategoryStatisticsService statisticsService;
 
-    public CategoryController(@Autowired CategoryService service) {
+    public CategoryController(@Autowired CategoryService service, @Autowired ProductService productService, @Autowired CategoryStatisticsService statisticsService) {
         this.service = service;
+        this.productService = productService;
+        this.statisticsService = statisticsService;
     }
 
     @GetMapping
@@ -36,13 +49,66 @@ public class CategoryController {
         return ResponseEntity.ok(ApiResponse.ok(list));
     }
 
+    @GetMapping(params = "slice=true")
+    public ResponseEntity<ApiResponse<Slice<CategoryDTO>>> findAllSliced(
+            @PageableDefault(sort = "name", direction = Direction.ASC)
+            Pageable pageable
+    ) {
+        Slice<CategoryDTO> list = service.findAllSliced(pageable);
+
+        return ResponseEntity.ok(ApiResponse.ok(list));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<CategoryDTO>> findById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<CategoryDTO>> findById(@PathVariable Long id, ServletWebRequest request) {
+        if (ConditionalRequests.isNotModified(request, service.findVersionById(id))) return null;
+
         CategoryDTO dto = service.findById(id);
 
         return ResponseEntity.ok(ApiResponse.ok(dto));
     }
 
+    /**
+     * Products of the category ordered by id, the pageable's sort is ignored.
+     */
+    @GetMapping("/{id}/products")
+    public ResponseEntity<ApiResponse<Page<ProductDTO>>> findProducts(@PathVariable Long id, Pageable pageable) {
+        Page<ProductDTO> list = productService.findAllByCategoryId(id, pageable);
+
+        return ResponseEntity.ok(ApiResponse.ok(list));
+    }
+
+    /**
+     * Rating statistics of the whole store
+     */
+    @GetMapping("/statistics")
+    public ResponseEntity<ApiResponse<CategoryRatingStatisticsDTO>> findStoreStatistics() {
+        CategoryRatingStatisticsDTO dto = statisticsService.findStoreWide();
+
+        return ResponseEntity.ok(ApiResponse.ok(dto));
+    }
+
+    /**
+     * Rating statistics of all the products of the category
+     */
+    @GetMapping("/{id}/statistics")
+    public ResponseEntity<ApiResponse<CategoryRatingStatisticsDTO>> findStatistics(@PathVariable Long id) {
+        CategoryRatingStatisticsDTO dto = statisticsService.findByCategoryId(id);
+
+        return ResponseEntity.ok(ApiResponse.ok(dto));
+    }
+
+    /**
+     * Discounts every product of the category with one shared discount
+     */
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @PostMapping("/{id}/discount")
+    public ResponseEntity<ApiResponse<DiscountCampaignReportDTO>> createDiscount(@PathVariable Long id, @RequestBody @Valid DiscountDTO discountDto) {
+        DiscountCampaignReportDTO report = productService.createDiscountForCategoryId(id, discountDto);
+
+        return ResponseEntity.ok(ApiResponse.ok(report));
+    }
+
     @PostMapping
     public ResponseEntity<ApiResponse<CategoryDTO>> insert(@RequestBody @Valid CategoryDTO dto) {
         dto = service.insert(dto);
@@ -0,0 +1,27 @@
+package com.github.dougmab.openvinylboxapi.controller;
+
+import com.github.dougmab.openvinylboxapi.payload.ResourceVersion;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+final class ConditionalRequests {
+
+    private static final String REVALIDATE = CacheControl.noCache().getHeaderValue();
+
+    private ConditionalRequests() {}
+
+    /**
+     * Sets the ETag and Last-Modified headers of the resource and checks them against the
+     * If-None-Match and If-Modified-Since headers of the request.
+     * @return true when the response was already turned into a 304 and the handler should return null
+     */
+    static boolean isNotModified(ServletWebRequest request, ResourceVersion version) {
+        // Lets clients and CDNs store the resource, as long as they revalidate it before every use
+        HttpServletResponse response = request.getResponse();
+        if (response != null) response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+
+        return request.checkNotModified(version.getETag(), version.getLastModified().toEpochMilli());
+    }
+}
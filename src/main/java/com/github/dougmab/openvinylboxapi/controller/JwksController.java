@@ -0,0 +1,31 @@
+package com.github.dougmab.openvinylboxapi.controller;
+
+import com.github.dougmab.openvinylboxapi.config.JwtKeyRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Public keys of the tokens, as a standard JWK set so other services can verify them. Not wrapped in
+ * {@link com.github.dougmab.openvinylboxapi.payload.ApiResponse}, JWKS clients expect the bare set.
+ */
+@CrossOrigin
+@RestController
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    @Autowired
+    public JwksController(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok(keyRing.getPublicKeys().toJSONObject());
+    }
+}
@@ -1,21 +1,36 @@
 package com.github.dougmab.openvinylboxapi.controller;
 
+import com.github.dougmab.openvinylboxapi.dto.DiscountCampaignDTO;
+import com.github.dougmab.openvinylboxapi.dto.DiscountCampaignReportDTO;
 import com.github.dougmab.openvinylboxapi.dto.DiscountDTO;
 import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
+import com.github.dougmab.openvinylboxapi.dto.ProductImportReportDTO;
+import com.github.dougmab.openvinylboxapi.dto.ProductSuggestionDTO;
 import com.github.dougmab.openvinylboxapi.dto.RatingDTO;
 import com.github.dougmab.openvinylboxapi.dto.UserRatingDTO;
+import com.github.dougmab.openvinylboxapi.exception.ExceptionFactory;
 import com.github.dougmab.openvinylboxapi.payload.ApiResponse;
+import com.github.dougmab.openvinylboxapi.payload.CursorSlice;
+import com.github.dougmab.openvinylboxapi.service.ProductExportService;
+import com.github.dougmab.openvinylboxapi.service.ProductImportService;
 import com.github.dougmab.openvinylboxapi.service.ProductService;
 import com.github.dougmab.openvinylboxapi.service.RatingService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 
 @CrossOrigin
 @RestController
@@ -24,10 +39,14 @@ public class ProductController {
 
     private final ProductService service;
     private final RatingService ratingService;
+    private final ProductImportService importService;
+    private final ProductExportService exportService;
 
-    public ProductController(ProductService service, RatingService ratingService) {
+    public ProductController(ProductService service, RatingService ratingService, ProductImportService importService, ProductExportService exportService) {
         this.service = service;
         this.ratingService = ratingService;
+        this.importService = importService;
+        this.exportService = exportService;
     }
 
     @GetMapping
@@ -37,8 +56,72 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.ok(list));
     }
 
+    @GetMapping(params = { "slice=true", "!category", "!after" })
+    public ResponseEntity<ApiResponse<Slice<ProductDTO>>> findAllSliced(Pageable pageable) {
+        Slice<ProductDTO> list = service.findAllSliced(pageable);
+
+        return ResponseEntity.ok(ApiResponse.ok(list));
+    }
+
+    /**
+     * Products that belong to every listed category, e.g. ?category=1,3, ordered by id.
+     */
+    @GetMapping(params = { "category", "!after" })
+    public ResponseEntity<ApiResponse<Page<ProductDTO>>> findAllByCategories(@RequestParam("category") List<Long> categoryIds, Pageable pageable) {
+        Page<ProductDTO> list = service.findAllByCategoryIds(categoryIds, pageable);
+
+        return ResponseEntity.ok(ApiResponse.ok(list));
+    }
+
+    /**
+     * Full-text search over product and category names, ordered by relevance. The pageable's sort is ignored.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<Page<ProductDTO>>> search(@RequestParam String q, Pageable pageable) {
+        Page<ProductDTO> list = service.search(q, pageable);
+
+        return ResponseEntity.ok(ApiResponse.ok(list));
+    }
+
+    /**
+     * Type-ahead suggestions, the most rated products with a name or category word starting with the prefix.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<ProductSuggestionDTO>>> suggest(@RequestParam String prefix, @RequestParam(defaultValue = "10") int size) {
+        List<ProductSuggestionDTO> list = service.suggest(prefix, size);
+
+        return ResponseEntity.ok(ApiResponse.ok(list));
+    }
+
+    /**
+     * Cursor (keyset) based listing, selected by the presence of the after parameter.
+     * An empty after requests the first slice. Cursors don't support filtering by category.
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<ApiResponse<CursorSlice<ProductDTO>>> findAllAfter(@RequestParam String after, @RequestParam(defaultValue = "20") int size,
+                                                                          @RequestParam(name = "category", required = false) List<Long> categoryIds) {
+        if (categoryIds != null) throw ExceptionFactory.conflictingParameters("category", "after");
+
+        CursorSlice<ProductDTO> slice = service.findAllAfter(after, size);
+
+        return ResponseEntity.ok(ApiResponse.ok(slice));
+    }
+
+    /**
+     * Exports the whole catalog as NDJSON, written straight to the response as it is read.
+     */
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        exportService.exportCatalog(response.getOutputStream());
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ProductDTO>> findById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<ProductDTO>> findById(@PathVariable Long id, ServletWebRequest request) {
+        if (ConditionalRequests.isNotModified(request, service.findVersionById(id))) return null;
+
         ProductDTO dto = service.findById(id);
 
         return ResponseEntity.ok(ApiResponse.ok(dto));
@@ -53,6 +136,29 @@ public class ProductController {
         return ResponseEntity.created(uri).body(ApiResponse.ok(dto));
     }
 
+    /**
+     * Imports products from a CSV body with a name,price,imgUrl,categories header.
+     * Invalid rows are reported and skipped, the valid ones are saved.
+     */
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<ApiResponse<ProductImportReportDTO>> importCsv(InputStream body) throws IOException {
+        ProductImportReportDTO report = importService.importCsv(body);
+
+        return ResponseEntity.ok(ApiResponse.ok(report));
+    }
+
+    /**
+     * Imports products from a body with one JSON object per line.
+     */
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<ApiResponse<ProductImportReportDTO>> importNdjson(InputStream body) throws IOException {
+        ProductImportReportDTO report = importService.importNdjson(body);
+
+        return ResponseEntity.ok(ApiResponse.ok(report));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<ProductDTO>> update(@PathVariable Long id, @RequestBody @Valid ProductDTO newDto) {
         newDto = service.update(id, newDto);
@@ -69,6 +175,17 @@ public class ProductController {
 
     // DISCOUNT RELATED ENDPOINTS
 
+    /**
+     * Discounts the listed products with one shared discount
+     */
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @PostMapping("/discount")
+    public ResponseEntity<ApiResponse<DiscountCampaignReportDTO>> createDiscountCampaign(@RequestBody @Valid DiscountCampaignDTO campaignDto) {
+        DiscountCampaignReportDTO report = service.createDiscountForProductIds(campaignDto);
+
+        return ResponseEntity.ok(ApiResponse.ok(report));
+    }
+
     @PostMapping("{id}/discount")
     public ResponseEntity<ApiResponse<ProductDTO>> createDiscount(@PathVariable Long id, @RequestBody @Valid DiscountDTO discountDto) {
         ProductDTO productDto= service.createDiscountForProductId(id, discountDto);
@@ -94,6 +211,20 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.ok(list));
     }
 
+    @GetMapping(value = "{id}/rating", params = { "slice=true", "!after" })
+    public ResponseEntity<ApiResponse<Slice<UserRatingDTO>>> findRatingsByProductIdSliced(@PathVariable Long id, Pageable pageable) {
+        Slice<UserRatingDTO> list = ratingService.findAllUserRatingsOfProductIdSliced(id, pageable);
+
+        return ResponseEntity.ok(ApiResponse.ok(list));
+    }
+
+    @GetMapping(value = "{id}/rating", params = "after")
+    public ResponseEntity<ApiResponse<CursorSlice<UserRatingDTO>>> findRatingsByProductIdAfter(@PathVariable Long id, @RequestParam String after, @RequestParam(defaultValue = "20") int size) {
+        CursorSlice<UserRatingDTO> slice = ratingService.findUserRatingsOfProductIdAfter(id, after, size);
+
+        return ResponseEntity.ok(ApiResponse.ok(slice));
+    }
+
     @GetMapping("{productId}/rating/{userId}")
     public ResponseEntity<ApiResponse<UserRatingDTO>> findRatingsByProductId(@PathVariable Long productId, @PathVariable Long userId) {
         UserRatingDTO dto = ratingService.findRatingOfProductIdAndUserId(productId, userId);
@@ -11,6 +11,8 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @CrossOrigin
 @RestController
 public class TokenController {
@@ -23,9 +25,9 @@ public class TokenController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<TokenDTO>> login(@RequestBody LoginDTO loginDto) {
-        TokenDTO token = service.generateToken(loginDto);
-
-        return ResponseEntity.ok(ApiResponse.ok(token));
+    public CompletableFuture<ResponseEntity<ApiResponse<TokenDTO>>> login(@RequestBody LoginDTO loginDto) {
+        // Completed from the hashing threads, the request thread goes back to the pool meanwhile
+        return service.generateTokenAsync(loginDto)
+                .thenApply(token -> ResponseEntity.ok(ApiResponse.ok(token)));
     }
 }
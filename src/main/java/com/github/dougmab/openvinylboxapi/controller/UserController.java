@@ -8,6 +8,7 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
@@ -36,6 +37,14 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.ok(list));
     }
 
+    @GetMapping(params = "slice=true")
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    public ResponseEntity<ApiResponse<Slice<UserDTO>>> findAllSliced(Pageable pageable) {
+        Slice<UserDTO> list = service.findAllSliced(pageable);
+
+        return ResponseEntity.ok(ApiResponse.ok(list));
+    }
+
     @GetMapping("/me")
     public ResponseEntity<ApiResponse<UserDTO>> findCurrentUser(JwtAuthenticationToken jwt) throws ParseException {
         System.out.println(jwt.getName());
@@ -1,9 +1,12 @@
 package com.github.dougmab.openvinylboxapi.controller.exception;
 
+import com.github.dougmab.openvinylboxapi.exception.BadRequestException;
+import com.github.dougmab.openvinylboxapi.exception.PasswordHashingSaturatedException;
 import com.github.dougmab.openvinylboxapi.payload.ApiResponse;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -45,4 +48,21 @@ public class ControllerExceptionHandler {
         return ResponseEntity.status(err.getStatus())
                 .body(ApiResponse.error("Failed to login", err));
     }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ApiResponse<StandardError>> badRequest(BadRequestException e, HttpServletRequest request) {
+        StandardError err = new StandardError(HttpStatus.BAD_REQUEST.value(), e.getMessage(), request.getRequestURI());
+
+        return ResponseEntity.status(err.getStatus())
+                .body(ApiResponse.error("Bad request", err));
+    }
+
+    @ExceptionHandler(PasswordHashingSaturatedException.class)
+    public ResponseEntity<ApiResponse<StandardError>> serviceUnavailable(PasswordHashingSaturatedException e, HttpServletRequest request) {
+        StandardError err = new StandardError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage(), request.getRequestURI());
+
+        return ResponseEntity.status(err.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error("Service unavailable", err));
+    }
 }
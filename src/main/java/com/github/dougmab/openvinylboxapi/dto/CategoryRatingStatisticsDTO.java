@@ -0,0 +1,80 @@
+package com.github.dougmab.openvinylboxapi.dto;
+
+import com.github.dougmab.openvinylboxapi.entity.CategoryRatingStatistics;
+
+import java.time.Instant;
+
+public class CategoryRatingStatisticsDTO {
+    private Long categoryId;
+
+    private Long totalRatings;
+    private Long totalStars;
+    private Double averageRating;
+
+    private Long fiveStars;
+    private Long fourStars;
+    private Long threeStars;
+    private Long twoStars;
+    private Long oneStar;
+
+    private Instant updatedAt;
+
+    public CategoryRatingStatisticsDTO() {
+    }
+
+    public CategoryRatingStatisticsDTO(CategoryRatingStatistics statistics) {
+        categoryId = statistics.getCategoryId();
+        totalRatings = statistics.getTotalRatings();
+        totalStars = statistics.getTotalStars();
+        averageRating = statistics.getAverageRating();
+        fiveStars = statistics.getFiveStars();
+        fourStars = statistics.getFourStars();
+        threeStars = statistics.getThreeStars();
+        twoStars = statistics.getTwoStars();
+        oneStar = statistics.getOneStar();
+        updatedAt = statistics.getUpdatedAt();
+    }
+
+    /**
+     * @return The id of the category, 0 for the whole store
+     */
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public Long getTotalRatings() {
+        return totalRatings;
+    }
+
+    public Long getTotalStars() {
+        return totalStars;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public Long getFiveStars() {
+        return fiveStars;
+    }
+
+    public Long getFourStars() {
+        return fourStars;
+    }
+
+    public Long getThreeStars() {
+        return threeStars;
+    }
+
+    public Long getTwoStars() {
+        return twoStars;
+    }
+
+    public Long getOneStar() {
+        return oneStar;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.dougmab.openvinylboxapi.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A discount applied to a list of products at once
+ */
+public class DiscountCampaignDTO extends DiscountDTO {
+    @NotEmpty(message = "At least one product is required")
+    private List<Long> productIds = new ArrayList<>();
+
+    public DiscountCampaignDTO() {}
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(List<Long> productIds) {
+        this.productIds = productIds;
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.dougmab.openvinylboxapi.dto;
+
+import com.github.dougmab.openvinylboxapi.entity.Discount;
+
+public class DiscountCampaignReportDTO {
+    private final DiscountDTO discount;
+    private final int affectedProducts;
+
+    public DiscountCampaignReportDTO(Discount discount, int affectedProducts) {
+        this.discount = new DiscountDTO(discount);
+        this.affectedProducts = affectedProducts;
+    }
+
+    public DiscountDTO getDiscount() {
+        return discount;
+    }
+
+    public int getAffectedProducts() {
+        return affectedProducts;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.dougmab.openvinylboxapi.dto;
+
+public class ProductCategoryDTO {
+    private Long productId;
+    private CategoryDTO category;
+
+    public ProductCategoryDTO() {
+    }
+
+    public ProductCategoryDTO(Long productId, Long categoryId, String categoryName) {
+        this.productId = productId;
+        this.category = new CategoryDTO(categoryId, categoryName);
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public CategoryDTO getCategory() {
+        return category;
+    }
+
+    public void setCategory(CategoryDTO category) {
+        this.category = category;
+    }
+}
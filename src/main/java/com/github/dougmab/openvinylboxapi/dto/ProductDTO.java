@@ -38,6 +38,9 @@ public class ProductDTO {
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private Double averageRating;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double effectivePrice;
+
     private List<CategoryDTO> categories = new ArrayList<>();
 
     public ProductDTO() {
@@ -52,12 +55,26 @@ public class ProductDTO {
         this.discount = discount;
     }
 
+    /**
+     * Constructor used by catalog projections, categories are added afterwards
+     */
+    public ProductDTO(Long id, String name, Double price, String imgUrl, Instant createdAt,
+                      Short discountPercentage, Integer discountDurationInMinutes, Instant discountCreatedAt, Instant discountEndsAt,
+                      Double averageRating, Double effectivePrice) {
+        this(id, name, price, imgUrl, createdAt, null);
+        if (discountPercentage != null)
+            discount = new DiscountDTO(null, discountPercentage, discountDurationInMinutes, discountCreatedAt, discountEndsAt);
+        this.averageRating = averageRating;
+        this.effectivePrice = effectivePrice;
+    }
+
     public ProductDTO(Product entity) {
         id = entity.getId();
         name = entity.getName();
         price = entity.getPrice();
         imgUrl = entity.getImgUrl();
         createdAt = entity.getCreatedAt();
+        effectivePrice = entity.getEffectivePrice();
         if (entity.getDiscount() != null)
             discount = new DiscountDTO(entity.getDiscount());
     }
@@ -89,6 +106,24 @@ public class ProductDTO {
         this.averageRating = averageRating;
     }
 
+    /**
+     * Copy sharing nothing mutable with the original
+     * @param other
+     */
+    public ProductDTO(ProductDTO other) {
+        this(other.id, other.name, other.price, other.imgUrl, other.createdAt, null);
+        DiscountDTO discount = other.discount;
+        if (discount != null)
+            this.discount = new DiscountDTO(null, discount.getPercentage(), discount.getDurationInMinutes(), discount.getCreatedAt(), discount.getEndsAt());
+        RatingStatisticsDTO statistics = other.ratingStatistics;
+        if (statistics != null)
+            ratingStatistics = new RatingStatisticsDTO(statistics.getTotalRatings(), statistics.getTotalStars(), statistics.getAverageRating(),
+                    statistics.getFiveStars(), statistics.getFourStars(), statistics.getThreeStars(), statistics.getTwoStars(), statistics.getOneStar());
+        averageRating = other.averageRating;
+        effectivePrice = other.effectivePrice;
+        other.categories.forEach(category -> categories.add(new CategoryDTO(category.getId(), category.getName())));
+    }
+
     public Long getId() {
         return id;
     }
@@ -157,6 +192,14 @@ public class ProductDTO {
         this.averageRating = averageRating;
     }
 
+    public Double getEffectivePrice() {
+        return effectivePrice;
+    }
+
+    public void setEffectivePrice(Double effectivePrice) {
+        this.effectivePrice = effectivePrice;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,69 @@
+package com.github.dougmab.openvinylboxapi.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single row of a bulk product import. Categories are referenced by name.
+ */
+public class ProductImportDTO {
+    @NotBlank(message = "Name is required")
+    @Size(min = 5, max = 60, message = "Name must be between 5 and 60 characters")
+    private String name;
+
+    @NotNull(message = "Price is required")
+    @Positive(message = "Price must be positive")
+    private Double price;
+
+    @NotBlank(message = "Image URL is required")
+    private String imgUrl;
+
+    private List<@NotBlank(message = "Category name must not be blank") String> categories = new ArrayList<>();
+
+    public ProductImportDTO() {
+    }
+
+    public ProductImportDTO(String name, Double price, String imgUrl, List<String> categories) {
+        this.name = name;
+        this.price = price;
+        this.imgUrl = imgUrl;
+        setCategories(categories);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public String getImgUrl() {
+        return imgUrl;
+    }
+
+    public void setImgUrl(String imgUrl) {
+        this.imgUrl = imgUrl;
+    }
+
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<String> categories) {
+        this.categories = categories == null ? new ArrayList<>() : categories;
+    }
+}
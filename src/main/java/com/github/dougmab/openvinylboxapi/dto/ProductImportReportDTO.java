@@ -0,0 +1,91 @@
+package com.github.dougmab.openvinylboxapi.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductImportReportDTO {
+    private long received;
+    private long imported;
+    private long failed;
+    private boolean errorsTruncated;
+    private String abortReason;
+    private List<RowError> errors = new ArrayList<>();
+
+    private final int maxErrors;
+
+    public ProductImportReportDTO(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void addReceived() {
+        received++;
+    }
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    /**
+     * Only the first errors are kept, so a file that is wrong as a whole doesn't fill the heap
+     */
+    public void addError(long line, String message) {
+        failed++;
+        if (errors.size() < maxErrors)
+            errors.add(new RowError(line, message));
+        else
+            errorsTruncated = true;
+    }
+
+    /**
+     * Stops the import at a point the rest of the body can't be read from, keeping what was imported
+     */
+    public void abort(String reason) {
+        abortReason = reason;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public boolean isAborted() {
+        return abortReason != null;
+    }
+
+    public String getAbortReason() {
+        return abortReason;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public static class RowError {
+        private final long line;
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
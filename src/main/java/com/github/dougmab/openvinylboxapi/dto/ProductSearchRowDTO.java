@@ -0,0 +1,34 @@
+package com.github.dougmab.openvinylboxapi.dto;
+
+/**
+ * One row per product and category, the columns the search and suggestion indexes are built from.
+ */
+public class ProductSearchRowDTO {
+    private final Long productId;
+    private final String name;
+    private final Long categoryId;
+    private final Integer totalRatings;
+
+    public ProductSearchRowDTO(Long productId, String name, Long categoryId, Integer totalRatings) {
+        this.productId = productId;
+        this.name = name;
+        this.categoryId = categoryId;
+        this.totalRatings = totalRatings;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public Integer getTotalRatings() {
+        return totalRatings;
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.dougmab.openvinylboxapi.dto;
+
+public class ProductSuggestionDTO {
+    private Long id;
+    private String name;
+    private Integer totalRatings;
+
+    public ProductSuggestionDTO() {
+    }
+
+    public ProductSuggestionDTO(Long id, String name, Integer totalRatings) {
+        this.id = id;
+        this.name = name;
+        this.totalRatings = totalRatings;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getTotalRatings() {
+        return totalRatings;
+    }
+
+    public void setTotalRatings(Integer totalRatings) {
+        this.totalRatings = totalRatings;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.dougmab.openvinylboxapi.dto;
+
+public class RatingReconciliationReportDTO {
+    private final long fromProductId;
+    private final long toProductId;
+    private final long partitions;
+    private final long products;
+    private final long patched;
+    private final long elapsedMillis;
+
+    public RatingReconciliationReportDTO(long fromProductId, long toProductId, long partitions, long products, long patched, long elapsedMillis) {
+        this.fromProductId = fromProductId;
+        this.toProductId = toProductId;
+        this.partitions = partitions;
+        this.products = products;
+        this.patched = patched;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getFromProductId() {
+        return fromProductId;
+    }
+
+    public long getToProductId() {
+        return toProductId;
+    }
+
+    public long getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * @return How many products had ratings or statistics to compare
+     */
+    public long getProducts() {
+        return products;
+    }
+
+    /**
+     * @return How many statistics rows had drifted and were corrected
+     */
+    public long getPatched() {
+        return patched;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getProductsPerSecond() {
+        return elapsedMillis == 0 ? products : products * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.dougmab.openvinylboxapi.dto;
+
+import com.github.dougmab.openvinylboxapi.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * What logging in needs of a user, detached from the entity so it can be cached between logins.
+ */
+public class UserCredentialsDTO implements UserDetails {
+
+    private final UserDTO user;
+    private final String password;
+    private final List<GrantedAuthority> authorities;
+
+    public UserCredentialsDTO(User entity) {
+        user = new UserDTO(entity);
+        password = entity.getPassword();
+        authorities = entity.getRoles().stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.getAuthority()))
+                .toList();
+    }
+
+    public Long getId() {
+        return user.getId();
+    }
+
+    public UserDTO getUser() {
+        return user;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return user.getEmail();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.dougmab.openvinylboxapi.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Rating counters of all the products of a category, or of the whole store for {@link #STORE_ID}.
+ * A product in several categories counts in each of them.
+ * <p>
+ * Not mapped to {@link Category}, so deleting a category is never blocked by its statistics.
+ */
+@Entity
+public class CategoryRatingStatistics implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Category id of the store-wide row, category ids start at 1
+     */
+    public static final long STORE_ID = 0L;
+
+    @Id
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private Long totalRatings = 0L;
+
+    @Column(nullable = false)
+    private Long totalStars = 0L;
+    @Column(nullable = false)
+    private Long fiveStars = 0L;
+    @Column(nullable = false)
+    private Long fourStars = 0L;
+    @Column(nullable = false)
+    private Long threeStars = 0L;
+    @Column(nullable = false)
+    private Long twoStars = 0L;
+    @Column(nullable = false)
+    private Long oneStar = 0L;
+
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant updatedAt;
+
+    public CategoryRatingStatistics() {
+    }
+
+    public CategoryRatingStatistics(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Double getAverageRating() {
+        return RatingStatistics.averageOf(totalStars, totalRatings);
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public Long getTotalRatings() {
+        return totalRatings;
+    }
+
+    public Long getTotalStars() {
+        return totalStars;
+    }
+
+    public Long getFiveStars() {
+        return fiveStars;
+    }
+
+    public Long getFourStars() {
+        return fourStars;
+    }
+
+    public Long getThreeStars() {
+        return threeStars;
+    }
+
+    public Long getTwoStars() {
+        return twoStars;
+    }
+
+    public Long getOneStar() {
+        return oneStar;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -6,6 +6,8 @@ import org.hibernate.annotations.CreationTimestamp;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Instant;
 
 @Entity
@@ -15,7 +17,8 @@ public class Discount implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "discount_seq")
+    @SequenceGenerator(name = "discount_seq", sequenceName = "discount_seq", allocationSize = 50)
     private Long id;
     private Short percentage;
 
@@ -24,7 +27,6 @@ public class Discount implements Serializable {
     private Instant createdAt;
 
     @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
-    @CreationTimestamp
     private Instant endsAt;
 
     private Integer durationInMinutes;
@@ -44,9 +46,19 @@ public class Discount implements Serializable {
         endsAt = Instant.now().plusSeconds(durationInMinutes * 60);
     }
 
-    @PostPersist
+    @PrePersist
     public void prePersist() {
-        endsAt = Instant.now().plusSeconds(durationInMinutes * 60);
+        if (endsAt == null) endsAt = Instant.now().plusSeconds(durationInMinutes * 60L);
+    }
+
+    /**
+     * @return The discounted price, rounded to cents the same way as {@code ProductRepository.APPLY_DISCOUNT}
+     */
+    public Double applyTo(Double price) {
+        return BigDecimal.valueOf(price).setScale(2, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100 - percentage))
+                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP)
+                .doubleValue();
     }
 
     public Long getId() {
@@ -0,0 +1,53 @@
+package com.github.dougmab.openvinylboxapi.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * How far a long running job got, so a run interrupted by a restart resumes instead of starting over
+ */
+@Entity
+public class JobCheckpoint implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String name;
+
+    /**
+     * Job specific, usually the last id that was fully processed
+     */
+    @Column(nullable = false)
+    private Long position = 0L;
+
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant updatedAt;
+
+    public JobCheckpoint() {
+    }
+
+    public JobCheckpoint(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+        updatedAt = Instant.now();
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -2,6 +2,9 @@ package com.github.dougmab.openvinylboxapi.entity;
 
 import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -14,26 +17,48 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "product")
+@Table(name = "product", indexes = {
+        @Index(name = "idx_product_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_product_average_rating_id", columnList = "average_rating, id"),
+        @Index(name = "idx_product_effective_price_id", columnList = "effective_price, id"),
+        @Index(name = "idx_product_discount_id", columnList = "discount_id")
+})
 public class Product implements Serializable {
 
     @Serial
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
     private String name;
     private Double price;
     private String imgUrl;
 
+    /**
+     * Copy of the rounded average of the rating statistics, so listings can be sorted by it. Only written
+     * by {@code ProductRepository.refreshAverageRating}, never by saving the entity.
+     */
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Double averageRating = 0.0;
+
+    /**
+     * Price with the discount applied, so listings can be sorted by what the customer pays
+     */
+    private Double effectivePrice;
+
     @OneToMany(mappedBy = "product", cascade = CascadeType.REMOVE)
     private final List<Rating> ratings = new ArrayList<>();
 
     @OneToOne(mappedBy = "product", cascade = CascadeType.REMOVE)
     private RatingStatistics ratingStatistics;
 
-    @OneToOne(cascade = CascadeType.REMOVE, fetch = FetchType.EAGER)
+    /**
+     * Shared by every product of a discount campaign. A discount left without products is deleted when it expires.
+     */
+    @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "discount_id", referencedColumnName = "id")
     private Discount discount;
 
@@ -46,9 +71,11 @@ public class Product implements Serializable {
     private Instant updatedAt;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(name = "product_category",
             joinColumns = @JoinColumn(name = "product_id"),
-            inverseJoinColumns = @JoinColumn(name = "category_id"))
+            inverseJoinColumns = @JoinColumn(name = "category_id"),
+            indexes = @Index(name = "idx_product_category_category_product", columnList = "category_id, product_id"))
     Set<Category> categories = new HashSet<>();
 
     public Product() {}
@@ -58,6 +85,7 @@ public class Product implements Serializable {
         this.name = name;
         this.price = price;
         this.imgUrl = imgUrl;
+        refreshEffectivePrice();
     }
 
     public Product(ProductDTO dto) {
@@ -65,6 +93,7 @@ public class Product implements Serializable {
         name = dto.getName();
         price = dto.getPrice();
         imgUrl = dto.getImgUrl();
+        refreshEffectivePrice();
     }
 
     public Long getId() {
@@ -89,6 +118,7 @@ public class Product implements Serializable {
 
     public void setPrice(Double price) {
         this.price = price;
+        refreshEffectivePrice();
     }
 
     public String getImgUrl() {
@@ -99,12 +129,21 @@ public class Product implements Serializable {
         this.imgUrl = imgUrl;
     }
 
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public Double getEffectivePrice() {
+        return effectivePrice;
+    }
+
     public Discount getDiscount() {
         return discount;
     }
 
     public void setDiscount(Discount discount) {
         this.discount = discount;
+        refreshEffectivePrice();
     }
 
     public Instant getCreatedAt() {
@@ -115,6 +154,10 @@ public class Product implements Serializable {
         return updatedAt;
     }
 
+    private void refreshEffectivePrice() {
+        effectivePrice = discount == null || price == null ? price : discount.applyTo(price);
+    }
+
     public Set<Category> getCategories() {
         return categories;
     }
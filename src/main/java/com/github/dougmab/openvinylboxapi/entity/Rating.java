@@ -10,13 +10,19 @@ import java.io.Serializable;
 import java.time.Instant;
 
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rating_product_user", columnNames = {"product_id", "user_id"})
+}, indexes = {
+        @Index(name = "idx_rating_product_created_at_user", columnList = "product_id, created_at, user_id")
+})
 public class Rating implements Serializable {
 
     @Serial
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rating_seq")
+    @SequenceGenerator(name = "rating_seq", sequenceName = "rating_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
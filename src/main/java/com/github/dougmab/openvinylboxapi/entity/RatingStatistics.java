@@ -3,12 +3,14 @@ package com.github.dougmab.openvinylboxapi.entity;
 import jakarta.persistence.*;
 
 import java.io.Serializable;
+import java.time.Instant;
 
 @Entity
 public class RatingStatistics implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rating_statistics_seq")
+    @SequenceGenerator(name = "rating_statistics_seq", sequenceName = "rating_statistics_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -24,6 +26,16 @@ public class RatingStatistics implements Serializable {
     private Integer twoStars;
     private Integer oneStar;
 
+    /**
+     * Bumped by every change to the counters, used to tell clients whether product details changed
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant updatedAt;
+
     public RatingStatistics() {
     }
 
@@ -67,7 +79,16 @@ public class RatingStatistics implements Serializable {
     }
 
     public Double getAverageRating() {
-        if (totalRatings.equals(0)) return 0.0;
+        return averageOf(totalStars, totalRatings);
+    }
+
+    public static Double averageOf(Integer totalStars, Integer totalRatings) {
+        if (totalRatings == null || totalRatings.equals(0)) return 0.0;
+        return averageOf(totalStars.longValue(), totalRatings.longValue());
+    }
+
+    public static Double averageOf(long totalStars, long totalRatings) {
+        if (totalRatings == 0) return 0.0;
         double result = totalStars / (double) totalRatings;
         return Math.round(result * 10.0) / 10.0; // round to 1 decimal place
     }
@@ -107,4 +128,12 @@ public class RatingStatistics implements Serializable {
     public Integer getOneStar() {
         return oneStar;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
 }
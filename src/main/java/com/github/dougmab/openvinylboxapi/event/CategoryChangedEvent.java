@@ -0,0 +1,22 @@
+package com.github.dougmab.openvinylboxapi.event;
+
+/**
+ * Published when a category is renamed.
+ */
+public class CategoryChangedEvent {
+    private final Long categoryId;
+    private final String name;
+
+    public CategoryChangedEvent(Long categoryId, String name) {
+        this.categoryId = categoryId;
+        this.name = name;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.dougmab.openvinylboxapi.event;
+
+import com.github.dougmab.openvinylboxapi.entity.Discount;
+
+import java.time.Instant;
+
+/**
+ * Published when a discount is created or removed before it expired.
+ */
+public class DiscountChangedEvent {
+    private final Long discountId;
+    private final Instant endsAt;
+
+    private DiscountChangedEvent(Long discountId, Instant endsAt) {
+        this.discountId = discountId;
+        this.endsAt = endsAt;
+    }
+
+    public static DiscountChangedEvent created(Discount discount) {
+        return new DiscountChangedEvent(discount.getId(), discount.getEndsAt());
+    }
+
+    public static DiscountChangedEvent removed(Long discountId) {
+        return new DiscountChangedEvent(discountId, null);
+    }
+
+    public Long getDiscountId() {
+        return discountId;
+    }
+
+    /**
+     * @return When the discount expires, null when it was removed
+     */
+    public Instant getEndsAt() {
+        return endsAt;
+    }
+
+    public boolean isRemoved() {
+        return endsAt == null;
+    }
+}
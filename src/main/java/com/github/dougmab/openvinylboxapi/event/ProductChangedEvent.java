@@ -0,0 +1,50 @@
+package com.github.dougmab.openvinylboxapi.event;
+
+import com.github.dougmab.openvinylboxapi.entity.Category;
+import com.github.dougmab.openvinylboxapi.entity.Product;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published when a product is saved or deleted. Listeners keep in-memory views of the catalog in sync
+ * and should only act once the change has committed.
+ */
+public class ProductChangedEvent {
+    private final Long productId;
+    private final String name;
+    private final Set<Long> categoryIds;
+    private final boolean deleted;
+
+    private ProductChangedEvent(Long productId, String name, Set<Long> categoryIds, boolean deleted) {
+        this.productId = productId;
+        this.name = name;
+        this.categoryIds = categoryIds;
+        this.deleted = deleted;
+    }
+
+    public static ProductChangedEvent saved(Product product) {
+        Set<Long> categoryIds = product.getCategories().stream().map(Category::getId).collect(Collectors.toUnmodifiableSet());
+        return new ProductChangedEvent(product.getId(), product.getName(), categoryIds, false);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null, Set.of(), true);
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.dougmab.openvinylboxapi.event;
+
+/**
+ * Published when a rating of a product is added or changed.
+ */
+public class ProductRatedEvent {
+    private final Long productId;
+    private final int ratingsDelta;
+    private final int starsDelta;
+
+    public ProductRatedEvent(Long productId, int ratingsDelta, int starsDelta) {
+        this.productId = productId;
+        this.ratingsDelta = ratingsDelta;
+        this.starsDelta = starsDelta;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    /**
+     * @return How many ratings the product gained
+     */
+    public int getRatingsDelta() {
+        return ratingsDelta;
+    }
+
+    /**
+     * @return How many stars the product's ratings gained in total
+     */
+    public int getStarsDelta() {
+        return starsDelta;
+    }
+}
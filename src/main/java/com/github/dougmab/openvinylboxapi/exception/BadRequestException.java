@@ -0,0 +1,17 @@
+package com.github.dougmab.openvinylboxapi.exception;
+
+import java.io.Serial;
+
+/**
+ * A request the client has to fix before trying again. Its message is sent back as is, so it must not
+ * carry internal details.
+ */
+public class BadRequestException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
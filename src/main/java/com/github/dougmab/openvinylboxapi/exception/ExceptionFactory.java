@@ -15,4 +15,24 @@ public class ExceptionFactory {
     public static DataIntegrityViolationException dataIntegrityViolationUniqueField(Class<?> entity, String field) {
         return new DataIntegrityViolationException("There is already a " + entity.getSimpleName() + " with the " + field + " provided");
     }
+
+    public static BadRequestException invalidCursor(String cursor) {
+        return new BadRequestException("Cursor " + cursor + " is not valid");
+    }
+
+    public static BadRequestException invalidImport(String reason) {
+        return new BadRequestException("Import is not valid, " + reason);
+    }
+
+    public static BadRequestException invalidSearchQuery() {
+        return new BadRequestException("Search query must not be blank");
+    }
+
+    public static BadRequestException conflictingParameters(String first, String second) {
+        return new BadRequestException("Parameters " + first + " and " + second + " can't be used together");
+    }
+
+    public static PasswordHashingSaturatedException passwordHashingSaturated() {
+        return new PasswordHashingSaturatedException("Too many logins in progress, try again in a moment");
+    }
 }
@@ -0,0 +1,16 @@
+package com.github.dougmab.openvinylboxapi.exception;
+
+import java.io.Serial;
+
+/**
+ * Every password hashing thread is busy and the queue is full, the client should try again shortly.
+ */
+public class PasswordHashingSaturatedException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingSaturatedException(String message) {
+        super(message);
+    }
+}
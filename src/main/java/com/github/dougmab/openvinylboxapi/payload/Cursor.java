@@ -0,0 +1,53 @@
+package com.github.dougmab.openvinylboxapi.payload;
+
+import com.github.dougmab.openvinylboxapi.exception.ExceptionFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of a row in a keyset ordered by (createdAt, id). It is handed to clients
+ * as an opaque string so the ordering columns can change without breaking them.
+ */
+public class Cursor {
+    private static final String SEPARATOR = "|";
+
+    private final Instant createdAt;
+    private final Long id;
+
+    public Cursor(Instant createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * @param value The encoded cursor
+     * @return The decoded cursor, or null when the value is empty (first slice)
+     */
+    public static Cursor decode(String value) {
+        if (value == null || value.isBlank()) return null;
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            return new Cursor(Instant.parse(decoded.substring(0, separator)), Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw ExceptionFactory.invalidCursor(value);
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.dougmab.openvinylboxapi.payload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.function.Function;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorSlice<T> {
+    public static final int MAX_SIZE = 100;
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    /**
+     * Builds a slice from a query that fetched one row more than requested, which is
+     * how the existence of a next slice is detected without a count query.
+     * @param rows Up to size + 1 rows in keyset order
+     * @param size Requested slice size
+     * @param cursorOf Extracts the keyset position of a row
+     */
+    public static <T> CursorSlice<T> of(List<T> rows, int size, Function<T, Cursor> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+
+        return new CursorSlice<>(content, size, hasNext, nextCursor);
+    }
+
+    public static int limitSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    private CursorSlice(List<T> content, int size, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.dougmab.openvinylboxapi.payload;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Validators of a resource for conditional requests. Both are cheap to obtain, so a request whose
+ * client copy is still current can be answered with 304 before the resource itself is assembled.
+ */
+public class ResourceVersion {
+    private final String eTag;
+    private final Instant lastModified;
+
+    public ResourceVersion(String eTag, Instant lastModified) {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Constructor used by the product version query. Product details embed the names of its categories,
+     * so renaming one of them changes the version too.
+     */
+    public ResourceVersion(Long productId, Instant createdAt, Instant updatedAt, Long statisticsVersion, Instant statisticsUpdatedAt,
+                           Instant categoriesUpdatedAt) {
+        this(productId + "-" + latest(createdAt, updatedAt).toEpochMilli() + "-" + statisticsVersion + "-" + latest(categoriesUpdatedAt).toEpochMilli(),
+                latest(createdAt, updatedAt, statisticsUpdatedAt, categoriesUpdatedAt));
+    }
+
+    /**
+     * @param parts Values that together change whenever the resource does, such as its id and update time
+     */
+    public static ResourceVersion of(Instant lastModified, Object... parts) {
+        String eTag = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("-"));
+        return new ResourceVersion(eTag, lastModified);
+    }
+
+    private static Instant latest(Instant... instants) {
+        return Arrays.stream(instants).filter(Objects::nonNull).max(Instant::compareTo).orElse(Instant.EPOCH);
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
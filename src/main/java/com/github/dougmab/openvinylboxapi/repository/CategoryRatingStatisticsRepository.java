@@ -0,0 +1,86 @@
+package com.github.dougmab.openvinylboxapi.repository;
+
+import com.github.dougmab.openvinylboxapi.entity.CategoryRatingStatistics;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface CategoryRatingStatisticsRepository extends JpaRepository<CategoryRatingStatistics, Long> {
+
+    /**
+     * Same as {@link RatingStatisticsRepository#applyDelta}, applied to the row of every category of the
+     * product.
+     * @return The number of updated rows
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_rating_statistics"))
+    @Query(value = "UPDATE category_rating_statistics SET total_ratings = total_ratings + :ratings, total_stars = total_stars + :stars, " +
+            "five_stars = five_stars + :fiveStars, four_stars = four_stars + :fourStars, three_stars = three_stars + :threeStars, " +
+            "two_stars = two_stars + :twoStars, one_star = one_star + :oneStar, updated_at = :updatedAt " +
+            "WHERE category_id IN (SELECT pc.category_id FROM product_category pc WHERE pc.product_id = :productId)",
+            nativeQuery = true)
+    int applyDelta(Long productId, int ratings, int stars, int fiveStars, int fourStars, int threeStars, int twoStars, int oneStar, Instant updatedAt);
+
+    /**
+     * Same as {@link #applyDelta}, applied to the store-wide row.
+     * @return The number of updated rows
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_rating_statistics"))
+    @Query(value = "UPDATE category_rating_statistics SET total_ratings = total_ratings + :ratings, total_stars = total_stars + :stars, " +
+            "five_stars = five_stars + :fiveStars, four_stars = four_stars + :fourStars, three_stars = three_stars + :threeStars, " +
+            "two_stars = two_stars + :twoStars, one_star = one_star + :oneStar, updated_at = :updatedAt " +
+            "WHERE category_id = 0",
+            nativeQuery = true)
+    int applyStoreDelta(int ratings, int stars, int fiveStars, int fourStars, int threeStars, int twoStars, int oneStar, Instant updatedAt);
+
+    /**
+     * Locks every row until the end of the transaction, so deltas, which update the same rows, wait for it.
+     * @return The locked category ids
+     */
+    @Query(value = "SELECT category_id FROM category_rating_statistics ORDER BY category_id FOR UPDATE", nativeQuery = true)
+    List<Long> lockAllRows();
+
+    /**
+     * Aggregates the whole rating table in one grouped pass per scope, one row per category plus the
+     * store-wide row, and overwrites the existing rows with it in place. Categories without ratings get
+     * a row of zeros.
+     * @return The number of updated or inserted rows
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_rating_statistics"))
+    @Query(value = "MERGE INTO category_rating_statistics t USING (" +
+            "SELECT c.id AS category_id, COUNT(r.id) AS total_ratings, COALESCE(SUM(r.rating_value), 0) AS total_stars, " +
+            "COALESCE(SUM(CASE WHEN r.rating_value = 5 THEN 1 ELSE 0 END), 0) AS five_stars, COALESCE(SUM(CASE WHEN r.rating_value = 4 THEN 1 ELSE 0 END), 0) AS four_stars, " +
+            "COALESCE(SUM(CASE WHEN r.rating_value = 3 THEN 1 ELSE 0 END), 0) AS three_stars, COALESCE(SUM(CASE WHEN r.rating_value = 2 THEN 1 ELSE 0 END), 0) AS two_stars, " +
+            "COALESCE(SUM(CASE WHEN r.rating_value = 1 THEN 1 ELSE 0 END), 0) AS one_star " +
+            "FROM category c LEFT JOIN product_category pc ON pc.category_id = c.id LEFT JOIN rating r ON r.product_id = pc.product_id GROUP BY c.id " +
+            "UNION ALL " +
+            "SELECT 0, COUNT(r.id), COALESCE(SUM(r.rating_value), 0), " +
+            "COALESCE(SUM(CASE WHEN r.rating_value = 5 THEN 1 ELSE 0 END), 0), COALESCE(SUM(CASE WHEN r.rating_value = 4 THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN r.rating_value = 3 THEN 1 ELSE 0 END), 0), COALESCE(SUM(CASE WHEN r.rating_value = 2 THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN r.rating_value = 1 THEN 1 ELSE 0 END), 0) " +
+            "FROM rating r) a ON t.category_id = a.category_id " +
+            "WHEN MATCHED THEN UPDATE SET total_ratings = a.total_ratings, total_stars = a.total_stars, five_stars = a.five_stars, four_stars = a.four_stars, " +
+            "three_stars = a.three_stars, two_stars = a.two_stars, one_star = a.one_star, updated_at = CURRENT_TIMESTAMP " +
+            "WHEN NOT MATCHED THEN INSERT (category_id, total_ratings, total_stars, five_stars, four_stars, three_stars, two_stars, one_star, updated_at) " +
+            "VALUES (a.category_id, a.total_ratings, a.total_stars, a.five_stars, a.four_stars, a.three_stars, a.two_stars, a.one_star, CURRENT_TIMESTAMP)",
+            nativeQuery = true)
+    int mergeAllFromRatings();
+
+    /**
+     * @return The number of deleted rows
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_rating_statistics"))
+    @Query(value = "DELETE FROM category_rating_statistics WHERE category_id <> 0 AND category_id NOT IN (SELECT c.id FROM category c)", nativeQuery = true)
+    int deleteRowsOfMissingCategories();
+}
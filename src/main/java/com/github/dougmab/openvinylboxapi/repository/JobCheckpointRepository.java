@@ -0,0 +1,9 @@
+package com.github.dougmab.openvinylboxapi.repository;
+
+import com.github.dougmab.openvinylboxapi.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
@@ -1,8 +1,121 @@
 package com.github.dougmab.openvinylboxapi.repository;
 
+import com.github.dougmab.openvinylboxapi.dto.ProductCategoryDTO;
+import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
+import com.github.dougmab.openvinylboxapi.dto.ProductSearchRowDTO;
 import com.github.dougmab.openvinylboxapi.entity.Product;
+import com.github.dougmab.openvinylboxapi.payload.ResourceVersion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {}
+public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    /**
+     * Selects only the columns needed by the catalog listing straight into {@link ProductDTO},
+     * so no managed entities are created. Categories are loaded separately.
+     */
+    String CATALOG_PROJECTION = "SELECT new com.github.dougmab.openvinylboxapi.dto.ProductDTO(p.id, p.name, p.price, p.imgUrl, p.createdAt, d.percentage, d.durationInMinutes, d.createdAt, d.endsAt, p.averageRating, p.effectivePrice) FROM Product p LEFT JOIN p.discount d";
+
+    /**
+     * Rounds the average of the rating statistics the same way as {@code RatingStatistics.averageOf}
+     */
+    String REFRESH_AVERAGE_RATING = "UPDATE product SET average_rating = COALESCE((SELECT CASE WHEN s.total_ratings > 0 " +
+            "THEN ROUND(CAST(s.total_stars AS DECIMAL(12, 2)) / s.total_ratings, 1) ELSE 0 END " +
+            "FROM rating_statistics s WHERE s.product_id = product.id), 0)";
+
+    /**
+     * Attaches a discount to products in bulk, computing the effective price in the database
+     */
+    String APPLY_DISCOUNT = "UPDATE product SET discount_id = :discountId, " +
+            "effective_price = ROUND(CAST(price AS DECIMAL(12, 2)) * (100 - :percentage) / 100, 2), updated_at = :now";
+
+    /**
+     * Sortable by the product's properties, including averageRating and effectivePrice
+     */
+    @Query(CATALOG_PROJECTION)
+    Slice<ProductDTO> findCatalogSlice(Pageable pageable);
+
+    @Query(CATALOG_PROJECTION + " ORDER BY p.createdAt ASC, p.id ASC")
+    List<ProductDTO> findCatalogFirst(Pageable pageable);
+
+    /**
+     * Keyset (seek) variant of the catalog listing, the cost does not depend on how deep the client is.
+     */
+    @Query(CATALOG_PROJECTION + " WHERE p.createdAt > :createdAt OR (p.createdAt = :createdAt AND p.id > :id) ORDER BY p.createdAt ASC, p.id ASC")
+    List<ProductDTO> findCatalogAfter(Instant createdAt, Long id, Pageable pageable);
+
+    /**
+     * Forward-only stream over the whole catalog, fetched from the database in chunks. Must be
+     * consumed and closed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(CATALOG_PROJECTION + " ORDER BY p.id")
+    Stream<ProductDTO> streamCatalog();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.github.dougmab.openvinylboxapi.dto.ProductSearchRowDTO(p.id, p.name, c.id, s.totalRatings) FROM Product p LEFT JOIN p.categories c LEFT JOIN p.ratingStatistics s ORDER BY p.id")
+    Stream<ProductSearchRowDTO> streamSearchRows();
+
+    @Query("SELECT new com.github.dougmab.openvinylboxapi.dto.ProductSearchRowDTO(p.id, p.name, c.id, s.totalRatings) FROM Product p LEFT JOIN p.categories c LEFT JOIN p.ratingStatistics s " +
+            "WHERE p.id IN (SELECT pc.id FROM Product pc JOIN pc.categories cc WHERE cc.id = :categoryId) ORDER BY p.id")
+    Stream<ProductSearchRowDTO> streamSearchRowsByCategoryId(Long categoryId);
+
+    @Query(CATALOG_PROJECTION + " WHERE p.id IN :ids ORDER BY p.id")
+    List<ProductDTO> findCatalogByIdIn(Collection<Long> ids);
+
+    /**
+     * Reads one page of a category's products straight from the join table, answered by the
+     * (category_id, product_id) index alone.
+     */
+    @Query(value = "SELECT pc.product_id FROM product_category pc WHERE pc.category_id = :categoryId ORDER BY pc.product_id LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Long> findProductIdsByCategoryId(Long categoryId, int limit, long offset);
+
+    /**
+     * Native updates name the table they write as their query space, otherwise Hibernate can't tell what
+     * they change and drops every entity and query of the second level cache.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product"))
+    @Query(value = REFRESH_AVERAGE_RATING + " WHERE id = :productId", nativeQuery = true)
+    int refreshAverageRating(Long productId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product"))
+    @Query(value = APPLY_DISCOUNT + " WHERE id IN (SELECT pc.product_id FROM product_category pc WHERE pc.category_id = :categoryId)", nativeQuery = true)
+    int applyDiscountToCategoryId(Long categoryId, Long discountId, Short percentage, Instant now);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product"))
+    @Query(value = APPLY_DISCOUNT + " WHERE id IN (:productIds)", nativeQuery = true)
+    int applyDiscountToProductIdIn(Collection<Long> productIds, Long discountId, Short percentage, Instant now);
+
+    boolean existsByDiscountId(Long discountId);
+
+    @Query("SELECT new com.github.dougmab.openvinylboxapi.payload.ResourceVersion(p.id, p.createdAt, p.updatedAt, s.version, s.updatedAt, " +
+            "(SELECT MAX(c.updatedAt) FROM Product cp JOIN cp.categories c WHERE cp.id = p.id)) " +
+            "FROM Product p LEFT JOIN p.ratingStatistics s WHERE p.id = :id")
+    Optional<ResourceVersion> findVersionById(Long id);
+
+    @Query("SELECT new com.github.dougmab.openvinylboxapi.dto.ProductCategoryDTO(p.id, c.id, c.name) FROM Product p JOIN p.categories c WHERE p.id IN :productIds ORDER BY c.id")
+    List<ProductCategoryDTO> findCategoriesByProductIdIn(Collection<Long> productIds);
+}
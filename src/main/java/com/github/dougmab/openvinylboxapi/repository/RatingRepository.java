@@ -2,17 +2,25 @@ package com.github.dougmab.openvinylboxapi.repository;
 
 import com.github.dougmab.openvinylboxapi.dto.UserRatingDTO;
 import com.github.dougmab.openvinylboxapi.entity.Rating;
-import org.springframework.data.domain.Page;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RatingRepository extends JpaRepository<Rating, Long> {
 
+    /**
+     * Locks the rating so concurrent updates by the same user can't compute their statistics delta from the same old value
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<Rating> findByProductIdAndUserId(Long productId, Long userId);
 
     boolean existsByProductIdAndUserId(Long productId, Long userId);
@@ -21,5 +29,15 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
     Optional<UserRatingDTO> findUserRatingByProductIdAndUserId(Long productId, Long userId);
 
     @Query("SELECT new com.github.dougmab.openvinylboxapi.dto.UserRatingDTO(u.id, u.firstName, u.lastName, r.ratingValue, r.comment, r.createdAt) FROM Rating r JOIN r.user u WHERE r.product.id = :productId")
-    Page<UserRatingDTO> findRatingsByProductId(Long productId, Pageable pageable);
+    Slice<UserRatingDTO> findRatingSliceByProductId(Long productId, Pageable pageable);
+
+    @Query("SELECT new com.github.dougmab.openvinylboxapi.dto.UserRatingDTO(u.id, u.firstName, u.lastName, r.ratingValue, r.comment, r.createdAt) FROM Rating r JOIN r.user u WHERE r.product.id = :productId ORDER BY r.createdAt DESC, u.id DESC")
+    List<UserRatingDTO> findRatingsByProductIdFirst(Long productId, Pageable pageable);
+
+    /**
+     * Keyset (seek) variant of {@link #findRatingSliceByProductId}, newest first. A user rates a product
+     * only once, so the user id breaks ties between ratings created at the same instant.
+     */
+    @Query("SELECT new com.github.dougmab.openvinylboxapi.dto.UserRatingDTO(u.id, u.firstName, u.lastName, r.ratingValue, r.comment, r.createdAt) FROM Rating r JOIN r.user u WHERE r.product.id = :productId AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND u.id < :userId)) ORDER BY r.createdAt DESC, u.id DESC")
+    List<UserRatingDTO> findRatingsByProductIdAfter(Long productId, Instant createdAt, Long userId, Pageable pageable);
 }
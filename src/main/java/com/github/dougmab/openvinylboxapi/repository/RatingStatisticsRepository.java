@@ -2,12 +2,30 @@ package com.github.dougmab.openvinylboxapi.repository;
 
 import com.github.dougmab.openvinylboxapi.entity.RatingStatistics;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @Repository
 public interface RatingStatisticsRepository extends JpaRepository<RatingStatistics, Long> {
 
     Optional<RatingStatistics> findByProductId(Long id);
+
+    @Query("SELECT s.totalRatings FROM RatingStatistics s WHERE s.product.id = :productId")
+    Optional<Integer> findTotalRatingsByProductId(Long productId);
+
+    /**
+     * Adds the given amounts to the counters of a product in the database itself, so concurrent
+     * ratings neither lose updates nor need to lock the row before reading it.
+     * @return The number of updated rows, 0 when the product has no statistics yet
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RatingStatistics s SET s.totalRatings = s.totalRatings + :ratings, s.totalStars = s.totalStars + :stars, " +
+            "s.fiveStars = s.fiveStars + :fiveStars, s.fourStars = s.fourStars + :fourStars, s.threeStars = s.threeStars + :threeStars, " +
+            "s.twoStars = s.twoStars + :twoStars, s.oneStar = s.oneStar + :oneStar, " +
+            "s.version = s.version + 1, s.updatedAt = :updatedAt WHERE s.product.id = :productId")
+    int applyDelta(Long productId, int ratings, int stars, int fiveStars, int fourStars, int threeStars, int twoStars, int oneStar, Instant updatedAt);
 }
@@ -1,12 +1,27 @@
 package com.github.dougmab.openvinylboxapi.repository;
 
 import com.github.dougmab.openvinylboxapi.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    Slice<User> findSliceBy(Pageable pageable);
+
+    /**
+     * Replaces the password hash unless it changed since it was read.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :rehashed WHERE u.id = :id AND u.password = :stale")
+    int replacePassword(Long id, String stale, String rehashed);
 }
@@ -0,0 +1,326 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over a name and a set of category names per document.
+ * <p>
+ * Every query term must match a term of the document, either exactly or as a prefix of it. Documents
+ * are ranked by the sum, over the query terms, of the best match's field weight times its inverse
+ * document frequency, with prefix matches counting half. Ties are broken by ascending id.
+ * <p>
+ * A query term matches its exact term and at most 63 longer terms it is a prefix of, those with the most
+ * documents. A short prefix of a large vocabulary therefore misses the documents whose only match is one
+ * of its rarest expansions.
+ * <p>
+ * Safe for concurrent use, searches share a read lock and updates take the write lock. Document ids
+ * must fit in an int.
+ */
+public class InvertedIndex {
+
+    static final byte NAME_WEIGHT = 2;
+    static final byte CATEGORY_WEIGHT = 1;
+
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_QUERY_TERMS = 8;
+
+    private final NavigableMap<String, Postings> postingsByTerm = new TreeMap<>();
+    private final Map<Integer, String[]> termsByDocument = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds the document, replacing its previous terms if it was already indexed.
+     */
+    public void put(long id, String name, Collection<String> categoryNames) {
+        int document = toDocument(id);
+
+        Map<String, Byte> weights = new LinkedHashMap<>();
+        SearchTokenizer.tokenize(name).forEach(term -> weights.merge(term, NAME_WEIGHT, InvertedIndex::combine));
+        categoryNames.forEach(category -> SearchTokenizer.tokenize(category)
+                .forEach(term -> weights.merge(term, CATEGORY_WEIGHT, InvertedIndex::combine)));
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(document);
+
+            String[] terms = new String[weights.size()];
+            int i = 0;
+            for (Map.Entry<String, Byte> weight : weights.entrySet()) {
+                Map.Entry<String, Postings> existing = postingsByTerm.ceilingEntry(weight.getKey());
+
+                // Reuses the map's own key so each distinct term is held once
+                String term;
+                Postings postings;
+                if (existing != null && existing.getKey().equals(weight.getKey())) {
+                    term = existing.getKey();
+                    postings = existing.getValue();
+                } else {
+                    term = weight.getKey();
+                    postings = new Postings();
+                    postingsByTerm.put(term, postings);
+                }
+
+                postings.put(document, weight.getValue());
+                terms[i++] = term;
+            }
+            termsByDocument.put(document, terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(toDocument(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postingsByTerm.clear();
+            termsByDocument.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsByDocument.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchHits search(String query, long offset, int limit) {
+        List<String> queryTerms = SearchTokenizer.tokenize(query).stream().distinct().limit(MAX_QUERY_TERMS).toList();
+        if (queryTerms.isEmpty() || limit <= 0) return SearchHits.empty();
+
+        lock.readLock().lock();
+        try {
+            List<TermMatches> allMatches = new ArrayList<>(queryTerms.size());
+            for (String queryTerm : queryTerms) {
+                TermMatches matches = matchesOf(queryTerm);
+                if (matches.isEmpty()) return SearchHits.empty();
+                allMatches.add(matches);
+            }
+
+            // Only documents matched by the most selective term can match them all
+            allMatches.sort(Comparator.comparingLong(TermMatches::documentCount));
+            ScoredDocuments candidates = allMatches.get(0).scoredDocuments();
+            List<TermMatches> others = allMatches.subList(1, allMatches.size());
+
+            int keep = (int) Math.min(offset + limit, Integer.MAX_VALUE);
+            PriorityQueue<Hit> top = new PriorityQueue<>(Hit.WORST_FIRST);
+            long total = 0;
+
+            for (int i = 0; i < candidates.size; i++) {
+                int document = candidates.documents[i];
+                float score = candidates.scores[i];
+                for (TermMatches matches : others) {
+                    float termScore = matches.scoreOf(document);
+                    if (termScore == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += termScore;
+                }
+                if (score == 0) continue;
+
+                total++;
+                // Candidates come in ascending id order, so an equal score never beats the worst kept hit
+                if (top.size() < keep || score > top.peek().score) {
+                    top.offer(new Hit(document, score));
+                    if (top.size() > keep) top.poll();
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(Hit.WORST_FIRST.reversed());
+
+            List<Long> ids = ranked.stream().skip(offset).map(hit -> (long) hit.document).toList();
+            return new SearchHits(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private TermMatches matchesOf(String queryTerm) {
+        TermMatches matches = new TermMatches();
+        int documentCount = termsByDocument.size();
+
+        // Keeps the expansions with the most documents, the smallest one on top to be replaced first
+        PriorityQueue<Postings> expansions = new PriorityQueue<>(Comparator.comparingInt(Postings::size));
+        for (Map.Entry<String, Postings> entry : postingsByTerm.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+            Postings postings = entry.getValue();
+            if (entry.getKey().length() == queryTerm.length()) {
+                matches.add(postings, idf(documentCount, postings));
+                continue;
+            }
+
+            if (expansions.size() < MAX_PREFIX_EXPANSIONS - 1) {
+                expansions.offer(postings);
+            } else if (postings.size() > expansions.peek().size()) {
+                expansions.poll();
+                expansions.offer(postings);
+            }
+        }
+
+        for (Postings postings : expansions)
+            matches.add(postings, idf(documentCount, postings) * PREFIX_MATCH_FACTOR);
+
+        return matches;
+    }
+
+    private static float idf(int documentCount, Postings postings) {
+        return (float) Math.log(1 + (double) documentCount / postings.size());
+    }
+
+    private void removeDocument(int document) {
+        String[] terms = termsByDocument.remove(document);
+        if (terms == null) return;
+
+        for (String term : terms) {
+            Postings postings = postingsByTerm.get(term);
+            postings.remove(document);
+            if (postings.isEmpty()) postingsByTerm.remove(term);
+        }
+    }
+
+    private static byte combine(byte first, byte second) {
+        return (byte) (first | second);
+    }
+
+    private static int toDocument(long id) {
+        if (id > Integer.MAX_VALUE || id < 0)
+            throw new IllegalArgumentException("Document id " + id + " does not fit the search index");
+        return (int) id;
+    }
+
+    /**
+     * Index terms matched by one query term, each with the score factor of a match on it.
+     */
+    private static final class TermMatches {
+        private final List<Postings> postings = new ArrayList<>();
+        private final List<Float> factors = new ArrayList<>();
+        private long documentCount;
+        private int[] cursors = new int[0];
+
+        void add(Postings termPostings, float factor) {
+            postings.add(termPostings);
+            factors.add(factor);
+            documentCount += termPostings.size();
+            cursors = Arrays.copyOf(cursors, postings.size());
+        }
+
+        int size() {
+            return postings.size();
+        }
+
+        boolean isEmpty() {
+            return postings.isEmpty();
+        }
+
+        long documentCount() {
+            return documentCount;
+        }
+
+        /**
+         * Must be called with ascending documents, each term's position is kept between calls.
+         *
+         * @return The best score of the document for this query term, 0 if it doesn't match
+         */
+        float scoreOf(int document) {
+            float best = 0;
+            for (int i = 0; i < postings.size(); i++) {
+                Postings termPostings = postings.get(i);
+                int position = termPostings.advance(cursors[i], document);
+                cursors[i] = position;
+
+                if (position < termPostings.size() && termPostings.documentAt(position) == document)
+                    best = Math.max(best, termPostings.weightAt(position) * factors.get(i));
+            }
+            return best;
+        }
+
+        /**
+         * @return Every document matched, in ascending order, with its best score for this query term
+         */
+        ScoredDocuments scoredDocuments() {
+            ScoredDocuments scored = new ScoredDocuments((int) documentCount);
+
+            if (postings.size() == 1) {
+                Postings termPostings = postings.get(0);
+                float factor = factors.get(0);
+                for (int i = 0; i < termPostings.size(); i++)
+                    scored.add(termPostings.documentAt(i), termPostings.weightAt(i) * factor);
+                return scored;
+            }
+
+            // Packs the document in the high bits and the (positive) score in the low bits, so a single
+            // sort groups each document's scores with the best one last
+            long[] packed = new long[(int) documentCount];
+            int size = 0;
+            for (int p = 0; p < postings.size(); p++) {
+                Postings termPostings = postings.get(p);
+                float factor = factors.get(p);
+                for (int i = 0; i < termPostings.size(); i++)
+                    packed[size++] = ((long) termPostings.documentAt(i) << 32) | Float.floatToIntBits(termPostings.weightAt(i) * factor);
+            }
+            Arrays.sort(packed);
+
+            for (int i = 0; i < size; i++)
+                if (i == size - 1 || packed[i] >>> 32 != packed[i + 1] >>> 32)
+                    scored.add((int) (packed[i] >>> 32), Float.intBitsToFloat((int) packed[i]));
+            return scored;
+        }
+    }
+
+    private static final class ScoredDocuments {
+        private final int[] documents;
+        private final float[] scores;
+        private int size;
+
+        ScoredDocuments(int capacity) {
+            documents = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        void add(int document, float score) {
+            documents[size] = document;
+            scores[size] = score;
+            size++;
+        }
+    }
+
+    private static final class Hit {
+        static final Comparator<Hit> WORST_FIRST = Comparator.<Hit>comparingDouble(hit -> hit.score)
+                .thenComparing(hit -> hit.document, Comparator.reverseOrder());
+
+        private final int document;
+        private final float score;
+
+        Hit(int document, float score) {
+            this.document = document;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import java.util.Arrays;
+
+/**
+ * Documents containing one term, kept as parallel primitive arrays sorted by document id.
+ */
+final class Postings {
+
+    private int[] documents = new int[4];
+    private byte[] weights = new byte[4];
+    private int size;
+
+    void put(int document, byte weight) {
+        // New products get increasing ids, so most insertions are appends
+        if (size == 0 || documents[size - 1] < document) {
+            grow();
+            documents[size] = document;
+            weights[size] = weight;
+            size++;
+            return;
+        }
+
+        int index = Arrays.binarySearch(documents, 0, size, document);
+        if (index >= 0) {
+            weights[index] = weight;
+            return;
+        }
+
+        index = -(index + 1);
+        grow();
+        System.arraycopy(documents, index, documents, index + 1, size - index);
+        System.arraycopy(weights, index, weights, index + 1, size - index);
+        documents[index] = document;
+        weights[index] = weight;
+        size++;
+    }
+
+    void remove(int document) {
+        int index = Arrays.binarySearch(documents, 0, size, document);
+        if (index < 0) return;
+
+        System.arraycopy(documents, index + 1, documents, index, size - index - 1);
+        System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * Galloping search for the first position at or after {@code from} whose document is not lower than
+     * the given one. Cheaper than a binary search over the whole list when documents are looked up in
+     * ascending order, as each lookup starts where the previous one ended.
+     *
+     * @return The position found, {@code size()} if every remaining document is lower
+     */
+    int advance(int from, int document) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < size && documents[high] < document) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+
+        int index = Arrays.binarySearch(documents, low, Math.min(high + 1, size), document);
+        return index < 0 ? -(index + 1) : index;
+    }
+
+    int documentAt(int index) {
+        return documents[index];
+    }
+
+    int weightAt(int index) {
+        return weights[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void grow() {
+        if (size < documents.length) return;
+        documents = Arrays.copyOf(documents, size * 2);
+        weights = Arrays.copyOf(weights, size * 2);
+    }
+}
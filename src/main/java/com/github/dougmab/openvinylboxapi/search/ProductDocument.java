@@ -0,0 +1,62 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import com.github.dougmab.openvinylboxapi.dto.ProductSearchRowDTO;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A product as read by the in-memory indexes, with the ids of its categories.
+ */
+final class ProductDocument {
+    private final Long id;
+    private final String name;
+    private final int totalRatings;
+    private final List<Long> categoryIds = new ArrayList<>();
+
+    private ProductDocument(ProductSearchRowDTO row) {
+        id = row.getProductId();
+        name = row.getName();
+        totalRatings = row.getTotalRatings() == null ? 0 : row.getTotalRatings();
+    }
+
+    /**
+     * Groups rows ordered by product id into one document per product.
+     */
+    static void group(Stream<ProductSearchRowDTO> rows, Consumer<ProductDocument> consumer) {
+        Iterator<ProductSearchRowDTO> iterator = rows.iterator();
+        ProductDocument document = null;
+
+        while (iterator.hasNext()) {
+            ProductSearchRowDTO row = iterator.next();
+
+            if (document == null || !document.id.equals(row.getProductId())) {
+                if (document != null) consumer.accept(document);
+                document = new ProductDocument(row);
+            }
+
+            if (row.getCategoryId() != null) document.categoryIds.add(row.getCategoryId());
+        }
+
+        if (document != null) consumer.accept(document);
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getTotalRatings() {
+        return totalRatings;
+    }
+
+    List<Long> getCategoryIds() {
+        return categoryIds;
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import com.github.dougmab.openvinylboxapi.dto.ProductSearchRowDTO;
+import com.github.dougmab.openvinylboxapi.entity.Category;
+import com.github.dougmab.openvinylboxapi.repository.CategoryRepository;
+import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads products for the in-memory indexes, and keeps the category names they are indexed by, so the
+ * indexes share one copy of them.
+ */
+@Component
+public class ProductDocumentSource {
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate readTransaction;
+
+    private final Map<Long, String> categoryNames = new ConcurrentHashMap<>();
+
+    public ProductDocumentSource(ProductRepository productRepository, CategoryRepository categoryRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+
+        // Index listeners run after the publishing transaction has committed, reads need a transaction of their own
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Reads every category name, then every product in a single pass.
+     */
+    void readAll(Consumer<ProductDocument> consumer) {
+        readTransaction.executeWithoutResult(status -> {
+            categoryRepository.findAll().forEach(category -> categoryNames.put(category.getId(), category.getName()));
+
+            try (Stream<ProductSearchRowDTO> rows = productRepository.streamSearchRows()) {
+                ProductDocument.group(rows, consumer);
+            }
+        });
+    }
+
+    void readByCategoryId(Long categoryId, Consumer<ProductDocument> consumer) {
+        readTransaction.executeWithoutResult(status -> {
+            try (Stream<ProductSearchRowDTO> rows = productRepository.streamSearchRowsByCategoryId(categoryId)) {
+                ProductDocument.group(rows, consumer);
+            }
+        });
+    }
+
+    String categoryNameOf(Long categoryId) {
+        // Categories created after startup are looked up once, they are in the second-level cache
+        return categoryNames.computeIfAbsent(categoryId,
+                id -> categoryRepository.findById(id).map(Category::getName).orElse(""));
+    }
+
+    void renameCategory(Long categoryId, String name) {
+        categoryNames.put(categoryId, name);
+    }
+}
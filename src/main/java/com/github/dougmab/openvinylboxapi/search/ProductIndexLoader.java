@@ -0,0 +1,35 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the search and suggestion indexes on startup from a single read of the catalog.
+ */
+@Component
+public class ProductIndexLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductIndexLoader.class);
+
+    private final ProductDocumentSource source;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestionIndex suggestionIndex;
+
+    public ProductIndexLoader(ProductDocumentSource source, ProductSearchIndex searchIndex, ProductSuggestionIndex suggestionIndex) {
+        this.source = source;
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+    }
+
+    @PostConstruct
+    public void load() {
+        source.readAll(document -> {
+            searchIndex.add(document);
+            suggestionIndex.add(document);
+        });
+
+        logger.info("Indexed {} products for search and {} for suggestions", searchIndex.size(), suggestionIndex.size());
+    }
+}
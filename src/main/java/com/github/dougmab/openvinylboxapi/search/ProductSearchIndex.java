@@ -0,0 +1,54 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import com.github.dougmab.openvinylboxapi.event.CategoryChangedEvent;
+import com.github.dougmab.openvinylboxapi.event.ProductChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Full-text index of product names and category names. Built from the database on startup by
+ * {@link ProductIndexLoader} and updated from {@link ProductChangedEvent} and {@link CategoryChangedEvent}
+ * once the change has committed.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private final ProductDocumentSource source;
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    public ProductSearchIndex(ProductDocumentSource source) {
+        this.source = source;
+    }
+
+    public SearchHits search(String query, long offset, int limit) {
+        return index.search(query, offset, limit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            index.remove(event.getProductId());
+            return;
+        }
+
+        List<String> categories = event.getCategoryIds().stream().map(source::categoryNameOf).toList();
+        index.put(event.getProductId(), event.getName(), categories);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        source.renameCategory(event.getCategoryId(), event.getName());
+        source.readByCategoryId(event.getCategoryId(), this::add);
+    }
+
+    void add(ProductDocument product) {
+        index.put(product.getId(), product.getName(), product.getCategoryIds().stream().map(source::categoryNameOf).toList());
+    }
+
+    int size() {
+        return index.size();
+    }
+}
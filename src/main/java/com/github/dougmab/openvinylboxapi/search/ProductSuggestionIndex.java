@@ -0,0 +1,206 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import com.github.dougmab.openvinylboxapi.dto.ProductSuggestionDTO;
+import com.github.dougmab.openvinylboxapi.event.CategoryChangedEvent;
+import com.github.dougmab.openvinylboxapi.event.ProductChangedEvent;
+import com.github.dougmab.openvinylboxapi.event.ProductRatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Type-ahead suggestions over product and category names, served from memory. Each product is keyed
+ * by its name starting at each of its first words and by the names of its categories, and every
+ * prefix knows its most rated products in advance.
+ * <p>
+ * Built from the database on startup by {@link ProductIndexLoader} and updated from catalog and rating
+ * events once they have committed.
+ */
+@Component
+public class ProductSuggestionIndex {
+
+    /**
+     * Keys start at one of the first words of a name, so "miles" finds "The Best of Miles Davis"
+     */
+    private static final int MAX_KEY_WORDS = 4;
+
+    /**
+     * Type-ahead prefixes are short, longer keys only cost memory
+     */
+    private static final int MAX_KEY_LENGTH = 32;
+
+    private final ProductDocumentSource source;
+    private final int maxSize;
+
+    private final Map<Integer, Suggestion> suggestions = new HashMap<>();
+    private final SuggestionTrie trie;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProductSuggestionIndex(ProductDocumentSource source, @Value("${app.suggest.max-size:10}") int maxSize) {
+        this.source = source;
+        this.maxSize = maxSize;
+        this.trie = new SuggestionTrie(maxSize, this::compare);
+    }
+
+    /**
+     * @return The most rated products whose name, or the name of one of their categories, has a word
+     * starting with the prefix
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int size) {
+        String key = keyOf(SearchTokenizer.tokenize(prefix));
+        if (key.isEmpty() || size <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int[] top = trie.top(key);
+            List<ProductSuggestionDTO> result = new ArrayList<>(Math.min(top.length, size));
+            for (int i = 0; i < top.length && i < size; i++) {
+                Suggestion suggestion = suggestions.get(top[i]);
+                result.add(new ProductSuggestionDTO(suggestion.id, suggestion.name, suggestion.totalRatings));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Resolved before locking, new categories need a lookup
+        event.getCategoryIds().forEach(source::categoryNameOf);
+
+        lock.writeLock().lock();
+        try {
+            Suggestion previous = suggestions.get(key(event.getProductId()));
+            if (previous != null) remove(previous);
+
+            if (!event.isDeleted()) {
+                int totalRatings = previous == null ? 0 : previous.totalRatings;
+                put(new Suggestion(event.getProductId(), event.getName(), event.getCategoryIds(), totalRatings));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductRated(ProductRatedEvent event) {
+        if (event.getRatingsDelta() == 0) return;
+
+        lock.writeLock().lock();
+        try {
+            Suggestion suggestion = suggestions.get(key(event.getProductId()));
+            if (suggestion == null) return;
+
+            suggestion.totalRatings += event.getRatingsDelta();
+            trie.rerank(suggestion.keys, key(suggestion.id), event.getRatingsDelta() > 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            List<Suggestion> members = suggestions.values().stream()
+                    .filter(suggestion -> suggestion.categoryIds.contains(event.getCategoryId()))
+                    .toList();
+
+            members.forEach(this::remove);
+            source.renameCategory(event.getCategoryId(), event.getName());
+            members.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void add(ProductDocument product) {
+        lock.writeLock().lock();
+        try {
+            put(new Suggestion(product.getId(), product.getName(), product.getCategoryIds(), product.getTotalRatings()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return suggestions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Suggestion suggestion) {
+        // Kept as added, the search index may rename a category before this one removes its members
+        suggestion.keys = keysOf(suggestion);
+        suggestions.put(key(suggestion.id), suggestion);
+        for (String key : suggestion.keys) trie.add(key, key(suggestion.id));
+    }
+
+    private void remove(Suggestion suggestion) {
+        for (String key : suggestion.keys) trie.remove(key, key(suggestion.id));
+        suggestions.remove(key(suggestion.id));
+    }
+
+    private Set<String> keysOf(Suggestion suggestion) {
+        Set<String> keys = new LinkedHashSet<>();
+        addKeys(keys, suggestion.name);
+        suggestion.categoryIds.forEach(categoryId -> addKeys(keys, source.categoryNameOf(categoryId)));
+        return keys;
+    }
+
+    private static void addKeys(Set<String> keys, String name) {
+        List<String> words = SearchTokenizer.tokenize(name);
+        for (int start = 0; start < words.size() && start < MAX_KEY_WORDS; start++)
+            keys.add(keyOf(words.subList(start, words.size())));
+    }
+
+    private static String keyOf(List<String> words) {
+        String key = String.join(" ", words);
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    /**
+     * Most rated first, then by id
+     */
+    private int compare(int first, int second) {
+        int byRatings = Integer.compare(suggestions.get(second).totalRatings, suggestions.get(first).totalRatings);
+        return byRatings != 0 ? byRatings : Integer.compare(first, second);
+    }
+
+    private static int key(Long productId) {
+        return Math.toIntExact(productId);
+    }
+
+    private static final class Suggestion {
+        private final Long id;
+        private final String name;
+        private final Set<Long> categoryIds;
+        private int totalRatings;
+        private Set<String> keys;
+
+        Suggestion(Long id, String name, Collection<Long> categoryIds, int totalRatings) {
+            this.id = id;
+            this.name = name;
+            this.categoryIds = Set.copyOf(categoryIds);
+            this.totalRatings = totalRatings;
+        }
+    }
+}
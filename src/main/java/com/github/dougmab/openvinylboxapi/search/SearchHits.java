@@ -0,0 +1,28 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import java.util.List;
+
+/**
+ * One page of search results, ids ordered from most to least relevant, and the number of matching documents.
+ */
+public class SearchHits {
+    private final List<Long> ids;
+    private final long total;
+
+    public SearchHits(List<Long> ids, long total) {
+        this.ids = ids;
+        this.total = total;
+    }
+
+    public static SearchHits empty() {
+        return new SearchHits(List.of(), 0);
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into lower-cased terms without diacritics, so accented and plain spellings index the same.
+ */
+public final class SearchTokenizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) return terms;
+
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String term : SEPARATORS.split(normalized.toLowerCase(Locale.ROOT)))
+            if (!term.isEmpty()) terms.add(term);
+
+        return terms;
+    }
+}
@@ -0,0 +1,384 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Radix tree from keys to ids. Every node keeps the best ranked ids of its subtree, so looking up a
+ * prefix costs the length of the prefix rather than the number of keys under it.
+ * <p>
+ * Not thread safe. The ranking is read on every change, ids whose rank changes must be passed to
+ * {@link #rerank(Collection, int, boolean)} with all of their keys. Ids must not be negative.
+ */
+final class SuggestionTrie {
+
+    /**
+     * Orders ids, lower first.
+     */
+    interface Ranking {
+        int compare(int first, int second);
+    }
+
+    private static final int[] NO_IDS = new int[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final int size;
+    private final Ranking ranking;
+    private final Node root = new Node(new char[0]);
+
+    SuggestionTrie(int size, Ranking ranking) {
+        this.size = size;
+        this.ranking = ranking;
+    }
+
+    void add(String key, int id) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+
+        int offset = 0;
+        while (offset < key.length()) {
+            int index = node.childIndex(key.charAt(offset));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(offset).toCharArray());
+                node.insertChild(-(index + 1), leaf);
+                node = leaf;
+                path.add(node);
+                break;
+            }
+
+            Node child = node.children[index];
+            int common = child.commonPrefixLength(key, offset);
+            if (common < child.label.length) child = node.split(index, common);
+
+            node = child;
+            path.add(node);
+            offset += common;
+        }
+
+        if (!node.addTerminal(id)) return;
+        for (Node pathNode : path) pathNode.offer(id);
+    }
+
+    void remove(String key, int id) {
+        List<Node> path = pathTo(key);
+        if (path == null || !path.get(path.size() - 1).removeTerminal(id)) return;
+
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            if (node.topContains(id)) node.recomputeTop();
+        }
+
+        // Drops nodes left without keys and merges those left with a single child
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (node.hasTerminals()) break;
+
+            if (node.children.length == 0) path.get(i - 1).removeChild(node);
+            else if (node.children.length == 1) node.mergeWithOnlyChild();
+        }
+    }
+
+    /**
+     * Moves the id to its new place in the ranking of every node above its keys.
+     *
+     * @param keys     Every key of the id, nodes shared by several of them are only updated once the
+     *                 nodes below them are
+     * @param improved Whether the id now ranks better than before
+     */
+    void rerank(Collection<String> keys, int id, boolean improved) {
+        Map<Node, Integer> depths = new IdentityHashMap<>();
+        for (String key : keys) {
+            List<Node> path = pathTo(key);
+            if (path == null || !path.get(path.size() - 1).terminalContains(id)) continue;
+
+            for (int depth = 0; depth < path.size(); depth++) depths.put(path.get(depth), depth);
+        }
+
+        if (improved) {
+            depths.keySet().forEach(node -> node.offer(id));
+            return;
+        }
+
+        // A node's top is rebuilt from its children's, so the deepest nodes go first
+        depths.entrySet().stream()
+                .sorted(Map.Entry.<Node, Integer>comparingByValue().reversed())
+                .map(Map.Entry::getKey)
+                .filter(node -> node.topContains(id))
+                .forEach(Node::recomputeTop);
+    }
+
+    /**
+     * @return The best ranked ids of the keys starting with the prefix, best first. Must not be modified
+     */
+    int[] top(String prefix) {
+        Node node = root;
+        int offset = 0;
+
+        while (offset < prefix.length()) {
+            int index = node.childIndex(prefix.charAt(offset));
+            if (index < 0) return NO_IDS;
+
+            Node child = node.children[index];
+            int length = Math.min(child.label.length, prefix.length() - offset);
+            if (child.commonPrefixLength(prefix, offset) < length) return NO_IDS;
+
+            node = child;
+            offset += length;
+        }
+
+        return node.top;
+    }
+
+    private List<Node> pathTo(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+
+        int offset = 0;
+        while (offset < key.length()) {
+            int index = node.childIndex(key.charAt(offset));
+            if (index < 0) return null;
+
+            node = node.children[index];
+            if (node.label.length > key.length() - offset || node.commonPrefixLength(key, offset) < node.label.length)
+                return null;
+
+            path.add(node);
+            offset += node.label.length;
+        }
+
+        return path;
+    }
+
+    private final class Node {
+        private char[] label;
+        private Node[] children = NO_CHILDREN;
+
+        /**
+         * Ids whose key ends at this node, null when there is none. A hash set, since a common key such as
+         * a category name can end thousands of keys
+         */
+        private IdSet terminals;
+
+        /**
+         * Best ranked ids of the subtree, best first. Replaced rather than modified, so it can be shared
+         */
+        private int[] top = NO_IDS;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char label = children[middle].label[0];
+                if (label < first) low = middle + 1;
+                else if (label > first) high = middle - 1;
+                else return middle;
+            }
+            return -(low + 1);
+        }
+
+        int commonPrefixLength(String key, int offset) {
+            int length = Math.min(label.length, key.length() - offset);
+            int common = 0;
+            while (common < length && label[common] == key.charAt(offset + common)) common++;
+            return common;
+        }
+
+        void insertChild(int index, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        void removeChild(Node child) {
+            int index = childIndex(child.label[0]);
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        /**
+         * Splits the label of a child after its first characters, putting a new node in between.
+         *
+         * @return The new node
+         */
+        Node split(int index, int length) {
+            Node child = children[index];
+            Node middle = new Node(Arrays.copyOf(child.label, length));
+            child.label = Arrays.copyOfRange(child.label, length, child.label.length);
+            middle.children = new Node[] { child };
+            middle.top = child.top;
+            children[index] = middle;
+            return middle;
+        }
+
+        void mergeWithOnlyChild() {
+            Node child = children[0];
+            char[] merged = Arrays.copyOf(label, label.length + child.label.length);
+            System.arraycopy(child.label, 0, merged, label.length, child.label.length);
+
+            label = merged;
+            children = child.children;
+            terminals = child.terminals;
+            top = child.top;
+        }
+
+        boolean addTerminal(int id) {
+            if (terminals == null) terminals = new IdSet();
+            return terminals.add(id);
+        }
+
+        boolean removeTerminal(int id) {
+            if (terminals == null || !terminals.remove(id)) return false;
+            if (terminals.isEmpty()) terminals = null;
+            return true;
+        }
+
+        boolean terminalContains(int id) {
+            return terminals != null && terminals.contains(id);
+        }
+
+        boolean hasTerminals() {
+            return terminals != null;
+        }
+
+        boolean topContains(int id) {
+            for (int ranked : top)
+                if (ranked == id) return true;
+            return false;
+        }
+
+        /**
+         * Puts the id in the top of this node if it ranks well enough, or moves it if it's already there.
+         */
+        void offer(int id) {
+            top = offer(top, id);
+        }
+
+        void recomputeTop() {
+            int[] recomputed = NO_IDS;
+            if (terminals != null)
+                for (int id : terminals.toArray()) recomputed = offer(recomputed, id);
+            for (Node child : children)
+                for (int id : child.top) recomputed = offer(recomputed, id);
+            top = recomputed;
+        }
+
+        private int[] offer(int[] ranked, int id) {
+            int existing = -1;
+            for (int i = 0; i < ranked.length; i++)
+                if (ranked[i] == id) existing = i;
+
+            if (existing < 0 && ranked.length == size && ranking.compare(id, ranked[size - 1]) >= 0) return ranked;
+
+            int[] result = new int[existing < 0 ? Math.min(ranked.length + 1, size) : ranked.length];
+            int length = 0;
+            boolean placed = false;
+            for (int i = 0; i < ranked.length && length < result.length; i++) {
+                if (i == existing) continue;
+                if (!placed && ranking.compare(id, ranked[i]) < 0) {
+                    result[length++] = id;
+                    placed = true;
+                    if (length == result.length) break;
+                }
+                result[length++] = ranked[i];
+            }
+            if (!placed && length < result.length) result[length] = id;
+            return result;
+        }
+    }
+
+    /**
+     * Set of ids with open addressing and linear probing, so adding, removing and finding an id take the
+     * same time however many ids share the key.
+     */
+    private static final class IdSet {
+        private static final int FREE = -1;
+
+        private int[] slots = new int[] { FREE, FREE };
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean contains(int id) {
+            int mask = slots.length - 1;
+            for (int i = slot(id, mask); slots[i] != FREE; i = (i + 1) & mask)
+                if (slots[i] == id) return true;
+            return false;
+        }
+
+        boolean add(int id) {
+            if (contains(id)) return false;
+            // At most half full, so probe runs stay short
+            if (size * 2 >= slots.length) resize(slots.length * 2);
+            insert(id);
+            size++;
+            return true;
+        }
+
+        boolean remove(int id) {
+            int mask = slots.length - 1;
+            int i = slot(id, mask);
+            while (slots[i] != id) {
+                if (slots[i] == FREE) return false;
+                i = (i + 1) & mask;
+            }
+
+            // Moves back the ids after it in the run that may take its slot, so no lookup stops short of them
+            int free = i;
+            for (int j = (i + 1) & mask; slots[j] != FREE; j = (j + 1) & mask) {
+                if (((j - slot(slots[j], mask)) & mask) >= ((j - free) & mask)) {
+                    slots[free] = slots[j];
+                    free = j;
+                }
+            }
+            slots[free] = FREE;
+            size--;
+            return true;
+        }
+
+        int[] toArray() {
+            int[] ids = new int[size];
+            int length = 0;
+            for (int id : slots)
+                if (id != FREE) ids[length++] = id;
+            return ids;
+        }
+
+        private void insert(int id) {
+            int mask = slots.length - 1;
+            int i = slot(id, mask);
+            while (slots[i] != FREE) i = (i + 1) & mask;
+            slots[i] = id;
+        }
+
+        private void resize(int capacity) {
+            int[] previous = slots;
+            slots = new int[capacity];
+            Arrays.fill(slots, FREE);
+            for (int id : previous)
+                if (id != FREE) insert(id);
+        }
+
+        private static int slot(int id, int mask) {
+            // Spreads sequential ids over the table
+            int hash = id * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
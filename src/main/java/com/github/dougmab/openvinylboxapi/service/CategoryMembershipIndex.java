@@ -0,0 +1,121 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.event.ProductChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of the product_category table, one bitmap of product ids per category. Filtering by
+ * several categories is a bitwise AND of their bitmaps instead of a join per category.
+ * <p>
+ * Loaded from the join table on startup and kept in sync from {@link ProductChangedEvent}s once the
+ * change has committed. Product ids must fit in an int.
+ */
+@Component
+public class CategoryMembershipIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryMembershipIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, BitSet> productsByCategory = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CategoryMembershipIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            productsByCategory.clear();
+            jdbcTemplate.query("SELECT category_id, product_id FROM product_category", rs -> {
+                productsByCategory.computeIfAbsent(rs.getLong(1), id -> new BitSet()).set(bit(rs.getLong(2)));
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.info("Loaded category membership of {} categories", productsByCategory.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        int product = bit(event.getProductId());
+
+        lock.writeLock().lock();
+        try {
+            // Categories are few, clearing the bit everywhere is cheaper than keeping a reverse index
+            productsByCategory.values().forEach(products -> products.clear(product));
+            event.getCategoryIds().forEach(categoryId -> productsByCategory.computeIfAbsent(categoryId, id -> new BitSet()).set(product));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long countOf(Long categoryId) {
+        lock.readLock().lock();
+        try {
+            BitSet products = productsByCategory.get(categoryId);
+            return products == null ? 0 : products.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return A copy of the ids of the products that belong to every one of the given categories
+     */
+    public BitSet productsInAll(Collection<Long> categoryIds) {
+        if (categoryIds.isEmpty()) return new BitSet();
+
+        lock.readLock().lock();
+        try {
+            BitSet result = null;
+            for (Long categoryId : categoryIds) {
+                BitSet products = productsByCategory.get(categoryId);
+                if (products == null) return new BitSet();
+
+                if (result == null) result = (BitSet) products.clone();
+                else result.and(products);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The ids of one page of the given set, in ascending order
+     */
+    public static List<Long> page(BitSet products, long offset, int size) {
+        int bit = products.nextSetBit(0);
+        for (long skipped = 0; skipped < offset && bit >= 0; skipped++)
+            bit = products.nextSetBit(bit + 1);
+
+        List<Long> ids = new ArrayList<>(size);
+        for (; bit >= 0 && ids.size() < size; bit = products.nextSetBit(bit + 1))
+            ids.add((long) bit);
+        return ids;
+    }
+
+    private static int bit(long productId) {
+        if (productId > Integer.MAX_VALUE)
+            throw new IllegalStateException("Product id " + productId + " does not fit the category membership index");
+        return (int) productId;
+    }
+}
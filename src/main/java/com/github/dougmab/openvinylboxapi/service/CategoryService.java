@@ -1,31 +1,53 @@
 package com.github.dougmab.openvinylboxapi.service;
 
+import com.github.dougmab.openvinylboxapi.config.CacheConfig;
 import com.github.dougmab.openvinylboxapi.dto.CategoryDTO;
 import com.github.dougmab.openvinylboxapi.entity.Category;
+import com.github.dougmab.openvinylboxapi.entity.CategoryRatingStatistics;
+import com.github.dougmab.openvinylboxapi.event.CategoryChangedEvent;
 import com.github.dougmab.openvinylboxapi.exception.ExceptionFactory;
+import com.github.dougmab.openvinylboxapi.payload.ResourceVersion;
+import com.github.dougmab.openvinylboxapi.repository.CategoryRatingStatisticsRepository;
 import com.github.dougmab.openvinylboxapi.repository.CategoryRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 
 @Service
 public class CategoryService {
 
     private final CategoryRepository repository;
+    private final CategoryRatingStatisticsRepository statisticsRepository;
+    private final TotalCountService totalCountService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoryService(@Autowired CategoryRepository repository) {
+    public CategoryService(@Autowired CategoryRepository repository, CategoryRatingStatisticsRepository statisticsRepository, TotalCountService totalCountService, ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
+        this.statisticsRepository = statisticsRepository;
+        this.totalCountService = totalCountService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
     public Page<CategoryDTO> findAllPaged(Pageable pageable) {
-        Page<Category> list = repository.findAll(pageable);
+        Slice<CategoryDTO> slice = findAllSliced(pageable);
+        return new PageImpl<>(slice.getContent(), pageable, totalCountService.countOf(Category.class));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<CategoryDTO> findAllSliced(Pageable pageable) {
+        Slice<Category> list = repository.findSliceBy(pageable);
         return list.map(CategoryDTO::new);
     }
 
@@ -41,18 +63,36 @@ public class CategoryService {
         return new CategoryDTO(entity);
     }
 
+    /**
+     * Categories are kept in the second-level cache, so this doesn't reach the database once loaded.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion findVersionById(Long id) {
+        Category entity = repository.findById(id).orElseThrow(() -> ExceptionFactory.entityNotFound(Category.class, id));
+        Instant lastModified = entity.getUpdatedAt() != null ? entity.getUpdatedAt() : entity.getCreatedAt();
+        return ResourceVersion.of(lastModified, entity.getId(), lastModified.toEpochMilli());
+    }
+
     @Transactional
     public CategoryDTO insert(CategoryDTO dto) {
         Category entity = repository.save(new Category(dto));
+        // Created along with the category, so its first ratings are not lost until the next rebuild
+        statisticsRepository.save(new CategoryRatingStatistics(entity.getId()));
+        totalCountService.registerInsert(Category.class);
         return new CategoryDTO(entity);
     }
 
+    /**
+     * Cached product details embed category names, so all of them are dropped.
+     */
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCT_DETAILS, CacheConfig.PRODUCT_VERSIONS }, allEntries = true)
     @Transactional
     public CategoryDTO update(Long id, CategoryDTO dto) {
         try {
             Category entity = repository.getReferenceById(id);
             entity.setName(dto.getName());
             entity = repository.save(entity);
+            eventPublisher.publishEvent(new CategoryChangedEvent(entity.getId(), entity.getName()));
             return new CategoryDTO(entity);
         } catch (EntityNotFoundException e) {
             throw ExceptionFactory.entityNotFound(Category.class, id);
@@ -62,6 +102,7 @@ public class CategoryService {
     public void delete(Long id) {
         try {
             repository.deleteById(id);
+            totalCountService.registerDelete(Category.class);
         } catch (DataIntegrityViolationException e) {
             throw ExceptionFactory.dataIntegrityViolationForeignKey(Category.class);
         }
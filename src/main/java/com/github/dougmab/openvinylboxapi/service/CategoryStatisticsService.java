@@ -0,0 +1,144 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.dto.CategoryRatingStatisticsDTO;
+import com.github.dougmab.openvinylboxapi.entity.Category;
+import com.github.dougmab.openvinylboxapi.entity.CategoryRatingStatistics;
+import com.github.dougmab.openvinylboxapi.exception.ExceptionFactory;
+import com.github.dougmab.openvinylboxapi.repository.CategoryRatingStatisticsRepository;
+import com.github.dougmab.openvinylboxapi.repository.CategoryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rating statistics per category and store-wide, kept up to date by {@link RatingService} with the same
+ * deltas as the product statistics.
+ * <p>
+ * Every rating changes the store-wide row, so deltas are not applied in the transaction of the rating,
+ * which would hold its lock until commit and serialize all ratings of the store. They are queued once
+ * the rating commits and flushed together every {@code app.category-statistics.flush-interval-ms}, in
+ * one short transaction that updates the store-wide row once.
+ * <p>
+ * Deltas don't follow products between categories, and deleted products keep counting, so the rows are
+ * rebuilt from the rating table every {@code app.category-statistics.rebuild-cron}, and on startup when
+ * they were never built.
+ */
+@Service
+public class CategoryStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryStatisticsService.class);
+
+    private final CategoryRatingStatisticsRepository repository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, PendingRatingDelta> pending = new ConcurrentHashMap<>();
+
+    public CategoryStatisticsService(CategoryRatingStatisticsRepository repository, CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void buildIfMissing() {
+        if (!repository.existsById(CategoryRatingStatistics.STORE_ID)) rebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Transactional(readOnly = true)
+    public CategoryRatingStatisticsDTO findByCategoryId(Long categoryId) {
+        if (categoryRepository.findById(categoryId).isEmpty())
+            throw ExceptionFactory.entityNotFound(Category.class, categoryId);
+
+        return find(categoryId);
+    }
+
+    @Transactional(readOnly = true)
+    public CategoryRatingStatisticsDTO findStoreWide() {
+        return find(CategoryRatingStatistics.STORE_ID);
+    }
+
+    /**
+     * Queues the delta of a product once the current transaction commits, so a rolled back rating is
+     * never counted.
+     */
+    public void record(Long productId, RatingDelta delta) {
+        TransactionCallbacks.afterCommit(() -> pending.computeIfAbsent(productId, (id) -> new PendingRatingDelta()).add(delta));
+    }
+
+    /**
+     * Applies the queued deltas, the store-wide row first and then the categories of each product in id
+     * order, so concurrent flushes of other instances lock rows in the same order as far as possible.
+     */
+    @Scheduled(fixedDelayString = "${app.category-statistics.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<Long, RatingDelta> drained = new TreeMap<>();
+        PendingRatingDelta store = new PendingRatingDelta();
+        pending.forEach((productId, delta) -> {
+            RatingDelta sum = delta.drain();
+            if (sum.isEmpty()) return;
+
+            drained.put(productId, sum);
+            store.add(sum);
+        });
+
+        if (drained.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Instant now = Instant.now();
+                RatingDelta total = store.drain();
+                repository.applyStoreDelta(total.getRatings(), total.getStars(), total.getFiveStars(), total.getFourStars(),
+                        total.getThreeStars(), total.getTwoStars(), total.getOneStar(), now);
+                drained.forEach((productId, delta) -> repository.applyDelta(productId, delta.getRatings(), delta.getStars(),
+                        delta.getFiveStars(), delta.getFourStars(), delta.getThreeStars(), delta.getTwoStars(), delta.getOneStar(), now));
+            });
+        } catch (RuntimeException e) {
+            // Put the deltas back so they are retried on the next flush
+            drained.forEach((productId, delta) -> pending.computeIfAbsent(productId, (id) -> new PendingRatingDelta()).add(delta));
+            logger.warn("Could not flush category rating statistics of {} products, retrying on next flush", drained.size(), e);
+        }
+    }
+
+    /**
+     * Overwrites every row with a fresh aggregate of the rating table, in one transaction holding the lock
+     * of every row. Deltas queued so far are dropped, their ratings are already in the table. A rating
+     * committed between that and the aggregate, or still queued by another instance, is counted twice until
+     * the next rebuild.
+     */
+    @Scheduled(cron = "${app.category-statistics.rebuild-cron:0 0 4 * * *}")
+    public synchronized void rebuild() {
+        int rows = transactionTemplate.execute(status -> {
+            repository.lockAllRows();
+            pending.values().forEach(PendingRatingDelta::drain);
+            int merged = repository.mergeAllFromRatings();
+            repository.deleteRowsOfMissingCategories();
+            return merged;
+        });
+        logger.info("Rebuilt rating statistics of {} categories from the rating table", rows - 1);
+    }
+
+    /**
+     * A category without a row counts as having no rating.
+     */
+    private CategoryRatingStatisticsDTO find(Long categoryId) {
+        CategoryRatingStatistics statistics = repository.findById(categoryId).orElseGet(() -> new CategoryRatingStatistics(categoryId));
+        return new CategoryRatingStatisticsDTO(statistics);
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.dto.ProductImportDTO;
+import com.github.dougmab.openvinylboxapi.exception.ExceptionFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV with a header row. The name, price and imgUrl columns are required, categories is an
+ * optional list of category names separated by {@code ;}.
+ */
+class CsvProductImportReader implements ProductImportReader {
+
+    private static final int MAX_RECORD_LENGTH = 16 * 1024;
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long line = 1;
+
+    CsvProductImportReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+
+        List<String> header = readRecord();
+        if (header == null)
+            throw ExceptionFactory.invalidImport("the CSV header is missing");
+
+        for (int i = 0; i < header.size(); i++)
+            columns.put(header.get(i).trim().toLowerCase(), i);
+
+        for (String required : List.of("name", "price", "imgurl"))
+            if (!columns.containsKey(required))
+                throw ExceptionFactory.invalidImport("the CSV header has no " + required + " column");
+    }
+
+    @Override
+    public Row next() throws IOException {
+        List<String> fields;
+        long recordLine;
+        do {
+            recordLine = line;
+            fields = readRecord();
+            if (fields == null) return null;
+        } while (fields.size() == 1 && fields.get(0).isBlank());
+
+        if (fields.size() < columns.size())
+            return Row.invalid(recordLine, "Expected " + columns.size() + " columns but found " + fields.size());
+
+        Double price;
+        try {
+            String value = field(fields, "price");
+            price = value.isBlank() ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            return Row.invalid(recordLine, "Price must be a number");
+        }
+
+        List<String> categories = new ArrayList<>();
+        String categoryNames = field(fields, "categories");
+        if (categoryNames != null && !categoryNames.isBlank())
+            Arrays.stream(categoryNames.split(";")).map(String::trim).filter(name -> !name.isEmpty()).forEach(categories::add);
+
+        return Row.of(recordLine, new ProductImportDTO(field(fields, "name"), price, field(fields, "imgurl"), categories));
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        return index == null ? null : fields.get(index);
+    }
+
+    /**
+     * @return The fields of the next record, or null at the end of the body
+     */
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+        int c = reader.read();
+
+        if (c == -1) return null;
+
+        for (; c != -1; c = reader.read()) {
+            if (++length > MAX_RECORD_LENGTH)
+                throw ExceptionFactory.invalidImport("the record at line " + line + " is longer than " + MAX_RECORD_LENGTH + " characters");
+
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) reader.reset();
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+}
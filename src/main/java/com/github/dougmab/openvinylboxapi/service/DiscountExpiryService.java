@@ -0,0 +1,122 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.config.CacheConfig;
+import com.github.dougmab.openvinylboxapi.event.DiscountChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes discounts once they end. Upcoming expirations are kept in a {@link TimingWheel}, loaded from the
+ * discount table on startup and kept in sync from {@link DiscountChangedEvent}s, so the products listing
+ * never has to compare {@code endsAt} with the clock.
+ * <p>
+ * Every tick the due discounts are unlinked from their products, which get their full price back, and
+ * deleted, {@code app.discount.expiry.batch-size} at a time. Both statements are idempotent, so several
+ * instances expiring the same discount is harmless.
+ */
+@Component
+public class DiscountExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscountExpiryService.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final int batchSize;
+
+    private final TimingWheel wheel;
+
+    public DiscountExpiryService(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, CacheManager cacheManager,
+                                 @Value("${app.discount.expiry.tick-ms:1000}") long tickMillis,
+                                 @Value("${app.discount.expiry.wheel-size:512}") int wheelSize,
+                                 @Value("${app.discount.expiry.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.batchSize = batchSize;
+        this.wheel = new TimingWheel(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        jdbcTemplate.getJdbcTemplate().query("SELECT id, ends_at FROM discount", rs -> {
+            Timestamp endsAt = rs.getTimestamp(2);
+            // A discount without an end would never expire, it is removed right away
+            wheel.schedule(rs.getLong(1), endsAt == null ? 0 : endsAt.getTime());
+        });
+
+        logger.info("Scheduled expiry of {} discounts", wheel.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onDiscountChanged(DiscountChangedEvent event) {
+        if (event.isRemoved()) wheel.cancel(event.getDiscountId());
+        else wheel.schedule(event.getDiscountId(), event.getEndsAt().toEpochMilli());
+    }
+
+    @Scheduled(fixedDelayString = "${app.discount.expiry.tick-ms:1000}")
+    public void expireDue() {
+        List<Long> due;
+        synchronized (this) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+
+        if (due.isEmpty()) return;
+
+        try {
+            int products = expire(due);
+            logger.debug("Expired {} discounts of {} products", due.size(), products);
+        } catch (RuntimeException e) {
+            // Due again on the next tick
+            synchronized (this) {
+                due.forEach(discountId -> wheel.schedule(discountId, 0));
+            }
+            logger.warn("Could not expire {} discounts, retrying on next tick", due.size(), e);
+        }
+    }
+
+    /**
+     * Unlinks the discounts from their products, deletes them and evicts the cached details of the
+     * products, regardless of when the discounts end.
+     *
+     * @return How many products lost their discount
+     */
+    int expire(List<Long> discountIds) {
+        int products = 0;
+        for (int from = 0; from < discountIds.size(); from += batchSize) {
+            List<Long> batch = discountIds.subList(from, Math.min(from + batchSize, discountIds.size()));
+            List<Long> productIds = transactionTemplate.execute(status -> expireBatch(batch));
+
+            // Only evicted once the batch has committed, so the old discount can't be cached again
+            CacheConfig.evictProducts(cacheManager, productIds);
+            products += productIds.size();
+        }
+        return products;
+    }
+
+    private List<Long> expireBatch(List<Long> discountIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", discountIds)
+                .addValue("now", Timestamp.from(Instant.now()));
+
+        List<Long> productIds = new ArrayList<>(jdbcTemplate.queryForList("SELECT id FROM product WHERE discount_id IN (:ids)", params, Long.class));
+        // updated_at moves too, so conditional requests don't revalidate the discounted representation
+        jdbcTemplate.update("UPDATE product SET discount_id = NULL, effective_price = price, updated_at = :now WHERE discount_id IN (:ids)", params);
+        jdbcTemplate.update("DELETE FROM discount WHERE id IN (:ids)", params);
+        return productIds;
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.dougmab.openvinylboxapi.dto.ProductImportDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * One JSON object per line, e.g. {"name": "...", "price": 9.99, "imgUrl": "...", "categories": ["Jazz"]}
+ */
+class NdjsonProductImportReader implements ProductImportReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private long line;
+
+    NdjsonProductImportReader(BufferedReader reader, ObjectReader objectReader) {
+        this.reader = reader;
+        this.objectReader = objectReader.forType(ProductImportDTO.class);
+    }
+
+    @Override
+    public Row next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) return null;
+            line++;
+        } while (text.isBlank());
+
+        try {
+            ProductImportDTO product = objectReader.readValue(text);
+            return product == null ? Row.invalid(line, "Row must be a JSON object") : Row.of(line, product);
+        } catch (JsonProcessingException e) {
+            return Row.invalid(line, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+}
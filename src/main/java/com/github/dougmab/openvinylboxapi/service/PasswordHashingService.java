@@ -0,0 +1,127 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.exception.ExceptionFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt on {@code app.password.hashing.threads} dedicated threads, so a burst of logins only ever
+ * takes that much CPU instead of holding every request thread while hashing.
+ * <p>
+ * At most {@code app.password.hashing.queue-capacity} operations wait for a thread, further ones are
+ * turned down right away with {@link ExceptionFactory#passwordHashingSaturated()} instead of queueing
+ * for longer than a client would wait.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer queueWaitTimer;
+    private final Timer matchesTimer;
+    private final Timer encodeTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(BCryptPasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${app.password.hashing.threads:2}") int threads,
+                                  @Value("${app.password.hashing.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        queueWaitTimer = Timer.builder("password.hashing.queue.wait")
+                .description("Time a password waited for a hashing thread")
+                .register(meterRegistry);
+        matchesTimer = Timer.builder("password.hashing.time")
+                .description("Time to hash a password")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        encodeTimer = Timer.builder("password.hashing.time")
+                .description("Time to hash a password")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Passwords turned down because every hashing thread was busy and the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Passwords waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<Boolean> matchesAsync(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Whether the hash was made with a weaker cost than the current one, or another one when downgrading
+     * is enabled, and should be encoded again.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Encodes on the hashing threads, waiting for the result.
+     */
+    public String encode(CharSequence rawPassword) {
+        return await(encodeAsync(rawPassword));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Timer hashTimer, Supplier<T> hash) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.record(hash);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            return CompletableFuture.failedFuture(ExceptionFactory.passwordHashingSaturated());
+        }
+    }
+
+    /**
+     * Waits for the future, rethrowing what it failed with as is instead of wrapped.
+     */
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
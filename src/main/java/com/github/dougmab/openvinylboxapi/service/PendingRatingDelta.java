@@ -0,0 +1,41 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deltas recorded for a single row and not written yet. Each counter is striped, so concurrent ratings of
+ * a popular product don't contend on the same memory word.
+ */
+final class PendingRatingDelta {
+    private final LongAdder ratings = new LongAdder();
+    private final LongAdder stars = new LongAdder();
+    private final LongAdder fiveStars = new LongAdder();
+    private final LongAdder fourStars = new LongAdder();
+    private final LongAdder threeStars = new LongAdder();
+    private final LongAdder twoStars = new LongAdder();
+    private final LongAdder oneStar = new LongAdder();
+
+    void add(RatingDelta delta) {
+        ratings.add(delta.getRatings());
+        stars.add(delta.getStars());
+        fiveStars.add(delta.getFiveStars());
+        fourStars.add(delta.getFourStars());
+        threeStars.add(delta.getThreeStars());
+        twoStars.add(delta.getTwoStars());
+        oneStar.add(delta.getOneStar());
+    }
+
+    boolean isEmpty() {
+        return ratings.sum() == 0 && stars.sum() == 0 && fiveStars.sum() == 0 && fourStars.sum() == 0
+                && threeStars.sum() == 0 && twoStars.sum() == 0 && oneStar.sum() == 0;
+    }
+
+    /**
+     * A rating recorded while draining may be split between two flushes, which only delays part of it.
+     */
+    RatingDelta drain() {
+        return new RatingDelta((int) ratings.sumThenReset(), (int) stars.sumThenReset(), (int) fiveStars.sumThenReset(),
+                (int) fourStars.sumThenReset(), (int) threeStars.sumThenReset(), (int) twoStars.sumThenReset(),
+                (int) oneStar.sumThenReset());
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
+import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog as NDJSON, one product per line. Products are read from a forward-only
+ * stream and written in chunks, so memory use doesn't grow with the size of the catalog.
+ */
+@Service
+public class ProductExportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final ProductRepository repository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public ProductExportService(ProductRepository repository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportCatalog(OutputStream out) throws IOException {
+        try (Stream<ProductDTO> products = repository.streamCatalog();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            List<ProductDTO> chunk = new ArrayList<>(CHUNK_SIZE);
+            Iterator<ProductDTO> iterator = products.iterator();
+
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE) writeChunk(chunk, generator);
+            }
+
+            if (!chunk.isEmpty()) writeChunk(chunk, generator);
+        }
+    }
+
+    private void writeChunk(List<ProductDTO> chunk, JsonGenerator generator) throws IOException {
+        Map<Long, ProductDTO> productsById = chunk.stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+
+        repository.findCategoriesByProductIdIn(productsById.keySet())
+                .forEach(row -> productsById.get(row.getProductId()).getCategories().add(row.getCategory()));
+
+        for (ProductDTO product : chunk) {
+            objectMapper.writeValue(generator, product);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+
+        chunk.clear();
+        // Nothing read here should outlive the chunk, including whatever the category lookup loaded
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.dto.ProductImportDTO;
+
+import java.io.IOException;
+
+/**
+ * Reads the rows of a bulk import one at a time, so the body is never held in memory as a whole.
+ */
+interface ProductImportReader {
+
+    /**
+     * @return The next row, or null at the end of the body
+     */
+    Row next() throws IOException;
+
+    final class Row {
+        private final long line;
+        private final ProductImportDTO product;
+        private final String error;
+
+        private Row(long line, ProductImportDTO product, String error) {
+            this.line = line;
+            this.product = product;
+            this.error = error;
+        }
+
+        static Row of(long line, ProductImportDTO product) {
+            return new Row(line, product, null);
+        }
+
+        static Row invalid(long line, String error) {
+            return new Row(line, null, error);
+        }
+
+        long getLine() {
+            return line;
+        }
+
+        ProductImportDTO getProduct() {
+            return product;
+        }
+
+        String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
+import com.github.dougmab.openvinylboxapi.dto.ProductImportDTO;
+import com.github.dougmab.openvinylboxapi.dto.ProductImportReportDTO;
+import com.github.dougmab.openvinylboxapi.entity.Category;
+import com.github.dougmab.openvinylboxapi.entity.Product;
+import com.github.dougmab.openvinylboxapi.entity.RatingStatistics;
+import com.github.dougmab.openvinylboxapi.event.ProductChangedEvent;
+import com.github.dougmab.openvinylboxapi.exception.BadRequestException;
+import com.github.dougmab.openvinylboxapi.repository.CategoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports products from a streamed CSV or NDJSON body. Rows are validated as they are read and
+ * written in batches, each in its own transaction, so neither the body nor the imported entities
+ * are ever held in memory as a whole. A failed batch doesn't undo the ones committed before it.
+ * <p>
+ * A body that stops being readable partway, e.g. an oversized CSV record, ends the import with the
+ * report of what was done so far, since the batches before it are already committed.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private final CategoryRepository categoryRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate batchTransaction;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TotalCountService totalCountService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public ProductImportService(CategoryRepository categoryRepository, EntityManager entityManager,
+                                PlatformTransactionManager transactionManager, Validator validator,
+                                ObjectMapper objectMapper, TotalCountService totalCountService,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${app.product-import.batch-size:500}") int batchSize,
+                                @Value("${app.product-import.max-errors:100}") int maxErrors) {
+        this.categoryRepository = categoryRepository;
+        this.entityManager = entityManager;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.totalCountService = totalCountService;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public ProductImportReportDTO importCsv(InputStream body) throws IOException {
+        return importRows(new CsvProductImportReader(bufferedReader(body)));
+    }
+
+    public ProductImportReportDTO importNdjson(InputStream body) throws IOException {
+        return importRows(new NdjsonProductImportReader(bufferedReader(body), objectMapper.reader()));
+    }
+
+    private ProductImportReportDTO importRows(ProductImportReader reader) throws IOException {
+        Map<String, Long> categoryIds = categoryRepository.findAll().stream()
+                .collect(Collectors.toMap(category -> category.getName().toLowerCase(), Category::getId, (first, second) -> first));
+
+        ProductImportReportDTO report = new ProductImportReportDTO(maxErrors);
+        List<PendingProduct> batch = new ArrayList<>(batchSize);
+
+        try {
+            for (ProductImportReader.Row row = reader.next(); row != null; row = reader.next()) {
+                report.addReceived();
+
+                String error = row.getError() != null ? row.getError() : validate(row.getProduct(), categoryIds);
+                if (error != null) {
+                    report.addError(row.getLine(), error);
+                    continue;
+                }
+
+                batch.add(new PendingProduct(row.getLine(), row.getProduct(), categoryIds));
+                if (batch.size() == batchSize) {
+                    write(batch, report);
+                    batch.clear();
+                }
+            }
+        } catch (BadRequestException e) {
+            // The rows read until then are valid and still saved
+            report.abort(e.getMessage());
+        }
+
+        if (!batch.isEmpty()) write(batch, report);
+
+        return report;
+    }
+
+    private String validate(ProductImportDTO product, Map<String, Long> categoryIds) {
+        Set<ConstraintViolation<ProductImportDTO>> violations = validator.validate(product);
+        if (!violations.isEmpty())
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+
+        for (String category : product.getCategories())
+            if (!categoryIds.containsKey(category.toLowerCase()))
+                return "Category " + category + " does not exist";
+
+        return null;
+    }
+
+    private void write(List<PendingProduct> batch, ProductImportReportDTO report) {
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                for (PendingProduct pending : batch) {
+                    Product product = new Product(pending.product);
+                    pending.categoryIds.forEach(id -> product.getCategories().add(entityManager.getReference(Category.class, id)));
+
+                    entityManager.persist(product);
+                    entityManager.persist(new RatingStatistics(product));
+                    eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+                }
+
+                // Sends the batch as JDBC batched inserts and releases the entities before the next one
+                entityManager.flush();
+                entityManager.clear();
+
+                totalCountService.registerInserts(Product.class, batch.size());
+            });
+            report.addImported(batch.size());
+        } catch (RuntimeException e) {
+            // The cause may quote SQL and column values, it is only logged
+            logger.warn("Could not save the import batch of lines {} to {}", batch.get(0).line, batch.get(batch.size() - 1).line, e);
+            batch.forEach(pending -> report.addError(pending.line, "Batch could not be saved"));
+        }
+    }
+
+    private BufferedReader bufferedReader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    private static final class PendingProduct {
+        private final long line;
+        private final ProductDTO product;
+        private final List<Long> categoryIds;
+
+        private PendingProduct(long line, ProductImportDTO row, Map<String, Long> categoryIds) {
+            this.line = line;
+            this.product = new ProductDTO(null, row.getName(), row.getPrice(), row.getImgUrl(), null, null);
+            this.categoryIds = row.getCategories().stream().map(name -> categoryIds.get(name.toLowerCase())).distinct().toList();
+        }
+    }
+}
@@ -1,44 +1,162 @@
 package com.github.dougmab.openvinylboxapi.service;
 
+import com.github.dougmab.openvinylboxapi.config.CacheConfig;
+import com.github.dougmab.openvinylboxapi.dto.DiscountCampaignDTO;
+import com.github.dougmab.openvinylboxapi.dto.DiscountCampaignReportDTO;
 import com.github.dougmab.openvinylboxapi.dto.DiscountDTO;
 import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
+import com.github.dougmab.openvinylboxapi.dto.ProductSuggestionDTO;
+import com.github.dougmab.openvinylboxapi.entity.Category;
 import com.github.dougmab.openvinylboxapi.entity.Discount;
 import com.github.dougmab.openvinylboxapi.entity.Product;
 import com.github.dougmab.openvinylboxapi.entity.RatingStatistics;
+import com.github.dougmab.openvinylboxapi.event.DiscountChangedEvent;
+import com.github.dougmab.openvinylboxapi.event.ProductChangedEvent;
 import com.github.dougmab.openvinylboxapi.exception.ExceptionFactory;
+import com.github.dougmab.openvinylboxapi.payload.Cursor;
+import com.github.dougmab.openvinylboxapi.payload.CursorSlice;
+import com.github.dougmab.openvinylboxapi.payload.ResourceVersion;
 import com.github.dougmab.openvinylboxapi.repository.CategoryRepository;
 import com.github.dougmab.openvinylboxapi.repository.DiscountRepository;
 import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
 import com.github.dougmab.openvinylboxapi.repository.RatingStatisticsRepository;
+import com.github.dougmab.openvinylboxapi.search.ProductSearchIndex;
+import com.github.dougmab.openvinylboxapi.search.ProductSuggestionIndex;
+import com.github.dougmab.openvinylboxapi.search.SearchHits;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 public class ProductService {
 
+    private static final int DISCOUNT_BATCH_SIZE = 1000;
+
     private final ProductRepository repository;
     private final CategoryRepository categoryRepository;
     private final DiscountRepository discountRepository;
     private final RatingStatisticsRepository statisticsRepository;
+    private final TotalCountService totalCountService;
+    private final CategoryMembershipIndex membershipIndex;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestionIndex suggestionIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ProductService(ProductRepository repository,
-                          CategoryRepository categoryRepository, DiscountRepository discountRepository, RatingStatisticsRepository statisticsRepository) {
+                          CategoryRepository categoryRepository, DiscountRepository discountRepository, RatingStatisticsRepository statisticsRepository,
+                          TotalCountService totalCountService, CategoryMembershipIndex membershipIndex, ProductSearchIndex searchIndex,
+                          ProductSuggestionIndex suggestionIndex, ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.categoryRepository = categoryRepository;
         this.discountRepository = discountRepository;
         this.statisticsRepository = statisticsRepository;
+        this.totalCountService = totalCountService;
+        this.membershipIndex = membershipIndex;
+        this.searchIndex = searchIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
     public Page<ProductDTO> findAllPaged(Pageable pageable) {
-        Page<Product> list = repository.findAll(pageable);
-        return list.map((product) -> new ProductDTO(product, product.getCategories(), product.getRatingStatistics().getAverageRating()));
+        Slice<ProductDTO> slice = findAllSliced(pageable);
+        return new PageImpl<>(slice.getContent(), pageable, totalCountService.countOf(Product.class));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ProductDTO> findAllSliced(Pageable pageable) {
+        Slice<ProductDTO> slice = repository.findCatalogSlice(pageable);
+        addCategories(slice.getContent());
+        return slice;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorSlice<ProductDTO> findAllAfter(String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        size = CursorSlice.limitSize(size);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<ProductDTO> rows = cursor == null
+                ? repository.findCatalogFirst(limit)
+                : repository.findCatalogAfter(cursor.getCreatedAt(), cursor.getId(), limit);
+
+        CursorSlice<ProductDTO> slice = CursorSlice.of(rows, size, (dto) -> new Cursor(dto.getCreatedAt(), dto.getId()));
+        addCategories(slice.getContent());
+        return slice;
+    }
+
+    /**
+     * Products of a single category, ordered by id. The page is read from the join table index and
+     * the total from the membership index, so the product table is only touched for the page itself.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> findAllByCategoryId(Long categoryId, Pageable pageable) {
+        categoryRepository.findById(categoryId).orElseThrow(() -> ExceptionFactory.entityNotFound(Category.class, categoryId));
+
+        List<Long> ids = repository.findProductIdsByCategoryId(categoryId, pageable.getPageSize(), pageable.getOffset());
+        return new PageImpl<>(findCatalogByIds(ids), pageable, membershipIndex.countOf(categoryId));
+    }
+
+    /**
+     * Products that belong to all the given categories, ordered by id. The intersection is computed
+     * in memory by {@link CategoryMembershipIndex}.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> findAllByCategoryIds(Collection<Long> categoryIds, Pageable pageable) {
+        BitSet products = membershipIndex.productsInAll(categoryIds);
+
+        List<Long> ids = CategoryMembershipIndex.page(products, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(findCatalogByIds(ids), pageable, products.cardinality());
+    }
+
+    /**
+     * Products matching every term of the query by name or category name, most relevant first.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> search(String query, Pageable pageable) {
+        if (query == null || query.isBlank()) throw ExceptionFactory.invalidSearchQuery();
+
+        SearchHits hits = searchIndex.search(query, pageable.getOffset(), pageable.getPageSize());
+
+        Map<Long, ProductDTO> productsById = findCatalogByIds(hits.getIds()).stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        List<ProductDTO> ranked = hits.getIds().stream().map(productsById::get).filter(Objects::nonNull).toList();
+
+        return new PageImpl<>(ranked, pageable, hits.getTotal());
+    }
+
+    /**
+     * Served from memory only, without touching the database.
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int size) {
+        return suggestionIndex.suggest(prefix, Math.min(size, suggestionIndex.getMaxSize()));
+    }
+
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_VERSIONS, key = "#id")
+    @Transactional(readOnly = true)
+    public ResourceVersion findVersionById(Long id) {
+        return repository.findVersionById(id).orElseThrow(() -> ExceptionFactory.entityNotFound(Product.class, id));
     }
 
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_DETAILS, key = "#id")
     @Transactional(readOnly = true)
     public ProductDTO findById(Long id) {
         Product entity = repository.findById(id).orElseThrow(() -> ExceptionFactory.entityNotFound(Product.class, id));
@@ -57,10 +175,13 @@ public class ProductService {
 
         Product entity = repository.save(product);
         statisticsRepository.save(statistics);
+        totalCountService.registerInsert(Product.class);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(entity));
 
         return new ProductDTO(entity, entity.getCategories(), entity.getRatingStatistics());
     }
 
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCT_DETAILS, CacheConfig.PRODUCT_VERSIONS }, key = "#id")
     @Transactional
     public ProductDTO update(Long id, ProductDTO dto) {
         try {
@@ -77,6 +198,7 @@ public class ProductService {
             });
 
             entity = repository.save(entity);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(entity));
 
             return new ProductDTO(entity, entity.getCategories(), entity.getRatingStatistics());
         } catch (EntityNotFoundException e) {
@@ -84,6 +206,7 @@ public class ProductService {
         }
     }
 
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCT_DETAILS, CacheConfig.PRODUCT_VERSIONS }, key = "#id")
     @Transactional
     public ProductDTO createDiscountForProductId(Long id, DiscountDTO discount) {
         Product product = repository.findById(id).orElseThrow(() -> ExceptionFactory.entityNotFound(Product.class, id));
@@ -91,23 +214,98 @@ public class ProductService {
         product.setDiscount(newDiscount);
 
         repository.save(product);
+        eventPublisher.publishEvent(DiscountChangedEvent.created(newDiscount));
 
         return new ProductDTO(product, product.getCategories(), product.getRatingStatistics());
     }
 
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCT_DETAILS, CacheConfig.PRODUCT_VERSIONS }, key = "#id")
     @Transactional
     public void deleteDiscountForProductId(Long id) {
         Product product = repository.findById(id).orElseThrow(() -> ExceptionFactory.entityNotFound(Product.class, id));
         Discount discount = product.getDiscount();
-        discountRepository.delete(discount);
-        product.setDiscount(null);
+        // Already expired
+        if (discount == null) return;
 
+        product.setDiscount(null);
         repository.save(product);
+
+        // Campaign discounts stay until the last of their products lets go of them
+        if (repository.existsByDiscountId(discount.getId())) return;
+
+        discountRepository.delete(discount);
+        eventPublisher.publishEvent(DiscountChangedEvent.removed(discount.getId()));
+    }
+
+    /**
+     * Applies one discount to every product of the category with a single update, replacing their
+     * current discounts. Every cached product is evicted, campaigns are rare enough for that.
+     */
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCT_DETAILS, CacheConfig.PRODUCT_VERSIONS }, allEntries = true)
+    @Transactional
+    public DiscountCampaignReportDTO createDiscountForCategoryId(Long categoryId, DiscountDTO discount) {
+        if (!categoryRepository.existsById(categoryId))
+            throw ExceptionFactory.entityNotFound(Category.class, categoryId);
+
+        Discount newDiscount = discountRepository.saveAndFlush(new Discount(discount));
+        int affected = repository.applyDiscountToCategoryId(categoryId, newDiscount.getId(), newDiscount.getPercentage(), Instant.now());
+
+        return finishCampaign(newDiscount, affected);
+    }
+
+    /**
+     * Applies one discount to the given products, ignoring the ids that don't exist.
+     *
+     * @see #createDiscountForCategoryId(Long, DiscountDTO)
+     */
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCT_DETAILS, CacheConfig.PRODUCT_VERSIONS }, allEntries = true)
+    @Transactional
+    public DiscountCampaignReportDTO createDiscountForProductIds(DiscountCampaignDTO campaign) {
+        Discount newDiscount = discountRepository.saveAndFlush(new Discount(campaign));
+        List<Long> productIds = campaign.getProductIds().stream().filter(Objects::nonNull).distinct().toList();
+        Instant now = Instant.now();
+
+        int affected = 0;
+        // Keeps the IN list under the bind parameter limits of the drivers
+        for (int from = 0; from < productIds.size(); from += DISCOUNT_BATCH_SIZE) {
+            List<Long> batch = productIds.subList(from, Math.min(from + DISCOUNT_BATCH_SIZE, productIds.size()));
+            affected += repository.applyDiscountToProductIdIn(batch, newDiscount.getId(), newDiscount.getPercentage(), now);
+        }
+
+        return finishCampaign(newDiscount, affected);
+    }
+
+    private DiscountCampaignReportDTO finishCampaign(Discount discount, int affected) {
+        if (affected == 0) discountRepository.delete(discount);
+        else eventPublisher.publishEvent(DiscountChangedEvent.created(discount));
+
+        return new DiscountCampaignReportDTO(discount, affected);
+    }
+
+    private List<ProductDTO> findCatalogByIds(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+
+        List<ProductDTO> products = repository.findCatalogByIdIn(ids);
+        addCategories(products);
+        return products;
+    }
+
+    private void addCategories(List<ProductDTO> products) {
+        if (products.isEmpty()) return;
+
+        Map<Long, ProductDTO> productsById = products.stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+
+        repository.findCategoriesByProductIdIn(productsById.keySet())
+                .forEach(row -> productsById.get(row.getProductId()).getCategories().add(row.getCategory()));
     }
 
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCT_DETAILS, CacheConfig.PRODUCT_VERSIONS }, key = "#id")
     public void delete(Long id) {
         try {
             repository.deleteById(id);
+            totalCountService.registerDelete(Product.class);
+            eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
         } catch (DataIntegrityViolationException e) {
             throw ExceptionFactory.dataIntegrityViolationForeignKey(Product.class);
         }
@@ -0,0 +1,86 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+/**
+ * Change to apply to the counters of a {@link com.github.dougmab.openvinylboxapi.entity.RatingStatistics}
+ * row. Deltas are applied with a single relative UPDATE, so concurrent ratings never overwrite each other.
+ */
+public class RatingDelta {
+    private int ratings;
+    private int stars;
+    private int fiveStars;
+    private int fourStars;
+    private int threeStars;
+    private int twoStars;
+    private int oneStar;
+
+    private RatingDelta() {
+    }
+
+    RatingDelta(int ratings, int stars, int fiveStars, int fourStars, int threeStars, int twoStars, int oneStar) {
+        this.ratings = ratings;
+        this.stars = stars;
+        this.fiveStars = fiveStars;
+        this.fourStars = fourStars;
+        this.threeStars = threeStars;
+        this.twoStars = twoStars;
+        this.oneStar = oneStar;
+    }
+
+    public static RatingDelta added(Short stars) {
+        RatingDelta delta = new RatingDelta();
+        delta.ratings = 1;
+        delta.stars = stars;
+        delta.adjustCount(stars, 1);
+        return delta;
+    }
+
+    public static RatingDelta changed(Short oldStars, Short newStars) {
+        RatingDelta delta = new RatingDelta();
+        delta.stars = newStars - oldStars;
+        delta.adjustCount(oldStars, -1);
+        delta.adjustCount(newStars, 1);
+        return delta;
+    }
+
+    private void adjustCount(int stars, int increment) {
+        switch (stars) {
+            case 5 -> fiveStars += increment;
+            case 4 -> fourStars += increment;
+            case 3 -> threeStars += increment;
+            case 2 -> twoStars += increment;
+            case 1 -> oneStar += increment;
+        }
+    }
+
+    public boolean isEmpty() {
+        return ratings == 0 && stars == 0 && fiveStars == 0 && fourStars == 0 && threeStars == 0 && twoStars == 0 && oneStar == 0;
+    }
+
+    public int getRatings() {
+        return ratings;
+    }
+
+    public int getStars() {
+        return stars;
+    }
+
+    public int getFiveStars() {
+        return fiveStars;
+    }
+
+    public int getFourStars() {
+        return fourStars;
+    }
+
+    public int getThreeStars() {
+        return threeStars;
+    }
+
+    public int getTwoStars() {
+        return twoStars;
+    }
+
+    public int getOneStar() {
+        return oneStar;
+    }
+}
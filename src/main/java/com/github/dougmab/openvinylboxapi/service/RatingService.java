@@ -1,35 +1,58 @@
 package com.github.dougmab.openvinylboxapi.service;
 
+import com.github.dougmab.openvinylboxapi.config.CacheConfig;
 import com.github.dougmab.openvinylboxapi.dto.RatingDTO;
 import com.github.dougmab.openvinylboxapi.dto.UserRatingDTO;
 import com.github.dougmab.openvinylboxapi.entity.Product;
 import com.github.dougmab.openvinylboxapi.entity.Rating;
-import com.github.dougmab.openvinylboxapi.entity.RatingStatistics;
+import com.github.dougmab.openvinylboxapi.event.ProductRatedEvent;
 import com.github.dougmab.openvinylboxapi.exception.ExceptionFactory;
+import com.github.dougmab.openvinylboxapi.payload.Cursor;
+import com.github.dougmab.openvinylboxapi.payload.CursorSlice;
 import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
 import com.github.dougmab.openvinylboxapi.repository.RatingRepository;
 import com.github.dougmab.openvinylboxapi.repository.RatingStatisticsRepository;
 import com.github.dougmab.openvinylboxapi.repository.UserRepository;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
+
 @Service
 public class RatingService {
 
     private final RatingRepository repository;
     private final ProductRepository productRepository;
     private final RatingStatisticsRepository statisticsRepository;
+    private final CategoryStatisticsService categoryStatisticsService;
+    private final RatingStatisticsInitializer statisticsInitializer;
     private final UserRepository userRepository;
+    private final TotalCountService totalCountService;
+    private final RatingStatisticsBuffer statisticsBuffer;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public RatingService(RatingRepository repository, ProductRepository productRepository, RatingStatisticsRepository statisticsRepository, UserRepository userRepository) {
+    public RatingService(RatingRepository repository, ProductRepository productRepository, RatingStatisticsRepository statisticsRepository, CategoryStatisticsService categoryStatisticsService, RatingStatisticsInitializer statisticsInitializer, UserRepository userRepository, TotalCountService totalCountService, ObjectProvider<RatingStatisticsBuffer> statisticsBuffer, ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.productRepository = productRepository;
         this.statisticsRepository = statisticsRepository;
+        this.categoryStatisticsService = categoryStatisticsService;
+        this.statisticsInitializer = statisticsInitializer;
         this.userRepository = userRepository;
+        this.totalCountService = totalCountService;
+        this.statisticsBuffer = statisticsBuffer.getIfAvailable();
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
@@ -39,31 +62,52 @@ public class RatingService {
 
     @Transactional(readOnly = true)
     public Page<UserRatingDTO> findAllUserRatingsOfProductId(Long productId, Pageable pageable) {
-        return repository.findRatingsByProductId(productId, pageable);
+        Slice<UserRatingDTO> slice = findAllUserRatingsOfProductIdSliced(productId, pageable);
+        return new PageImpl<>(slice.getContent(), pageable, totalCountService.countRatingsOfProduct(productId));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<UserRatingDTO> findAllUserRatingsOfProductIdSliced(Long productId, Pageable pageable) {
+        return repository.findRatingSliceByProductId(productId, pageable);
     }
 
+    @Transactional(readOnly = true)
+    public CursorSlice<UserRatingDTO> findUserRatingsOfProductIdAfter(Long productId, String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        size = CursorSlice.limitSize(size);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<UserRatingDTO> rows = cursor == null
+                ? repository.findRatingsByProductIdFirst(productId, limit)
+                : repository.findRatingsByProductIdAfter(productId, cursor.getCreatedAt(), cursor.getId(), limit);
+
+        return CursorSlice.of(rows, size, (dto) -> new Cursor(dto.getCreatedAt(), dto.getUserId()));
+    }
+
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCT_DETAILS, CacheConfig.PRODUCT_VERSIONS }, key = "#productId")
     @Transactional
     public void addRating(Long productId, Long userId, RatingDTO ratingDTO) {
         if (repository.existsByProductIdAndUserId(productId, userId))
             throw new EntityExistsException("Rating already exists");
 
+        if (!productRepository.existsById(productId))
+            throw ExceptionFactory.entityNotFound(Product.class, productId);
+
         Rating rating = new Rating(ratingDTO);
-        Product product = productRepository.findById(productId).orElseThrow(() -> ExceptionFactory.entityNotFound(Product.class, productId));
-        rating.setProduct(product);
+        rating.setProduct(productRepository.getReferenceById(productId));
         rating.setUser(userRepository.getReferenceById(userId));
 
-        repository.save(rating);
-
-        RatingStatistics ratingStatistics = product.getRatingStatistics();
-        if (ratingStatistics == null) {
-            ratingStatistics = new RatingStatistics(product);
+        try {
+            // Flushed right away so a concurrent duplicate hits the unique constraint before the statistics change
+            repository.saveAndFlush(rating);
+        } catch (DataIntegrityViolationException e) {
+            throw new EntityExistsException("Rating already exists");
         }
 
-        ratingStatistics.addRating(rating);
-
-        statisticsRepository.save(ratingStatistics);
+        applyDelta(productId, RatingDelta.added(ratingDTO.getValue()));
     }
 
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCT_DETAILS, CacheConfig.PRODUCT_VERSIONS }, key = "#productId")
     @Transactional
     public void updateRating(Long productId, Long userId, RatingDTO ratingDTO) {
         Rating rating = repository.findByProductIdAndUserId(productId, userId).orElseThrow(() -> new EntityNotFoundException("Rating not found"));
@@ -73,9 +117,29 @@ public class RatingService {
 
         repository.save(rating);
 
-        RatingStatistics statistics = statisticsRepository.findByProductId(productId).orElseThrow(() -> ExceptionFactory.entityNotFound(RatingStatistics.class, productId));
-        statistics.updateRating(oldRatingValue, ratingDTO.getValue());
+        applyDelta(productId, RatingDelta.changed(oldRatingValue, ratingDTO.getValue()));
+    }
+
+    private void applyDelta(Long productId, RatingDelta delta) {
+        eventPublisher.publishEvent(new ProductRatedEvent(productId, delta.getRatings(), delta.getStars()));
+
+        if (statisticsBuffer != null) {
+            statisticsBuffer.record(productId, delta);
+            return;
+        }
+
+        if (updateStatistics(productId, delta) == 0) {
+            // Products created before statistics were introduced have no row yet
+            statisticsInitializer.createIfMissing(productId);
+            updateStatistics(productId, delta);
+        }
+
+        productRepository.refreshAverageRating(productId);
+        categoryStatisticsService.record(productId, delta);
+    }
 
-        statisticsRepository.save(statistics);
+    private int updateStatistics(Long productId, RatingDelta delta) {
+        return statisticsRepository.applyDelta(productId, delta.getRatings(), delta.getStars(),
+                delta.getFiveStars(), delta.getFourStars(), delta.getThreeStars(), delta.getTwoStars(), delta.getOneStar(), Instant.now());
     }
 }
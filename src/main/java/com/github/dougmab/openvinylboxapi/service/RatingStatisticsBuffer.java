@@ -0,0 +1,221 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.config.CacheConfig;
+import com.github.dougmab.openvinylboxapi.entity.JobCheckpoint;
+import com.github.dougmab.openvinylboxapi.repository.JobCheckpointRepository;
+import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import com.github.dougmab.openvinylboxapi.repository.RatingStatisticsRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind stage for rating statistics. Instead of updating the same statistics row on every rating,
+ * deltas are accumulated in memory per product and flushed together every
+ * {@code app.rating.write-behind.flush-interval-ms}. Enabled with {@code app.rating.write-behind.enabled=true}.
+ * <p>
+ * Deltas only live in memory until the next flush. A {@link JobCheckpoint} is marked while deltas may be
+ * pending and cleared once the last flush on shutdown succeeded. When it is still marked on startup, the
+ * previous instance stopped without flushing, and the statistics of the products rated since its last flush
+ * are corrected from the rating table before any request is served. A crash therefore loses no rating,
+ * only a few ms of staleness, and a clean restart recomputes nothing.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rating.write-behind.enabled", havingValue = "true")
+public class RatingStatisticsBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingStatisticsBuffer.class);
+
+    private static final String APPLY_DELTA = "UPDATE rating_statistics SET total_ratings = total_ratings + ?, total_stars = total_stars + ?, " +
+            "five_stars = five_stars + ?, four_stars = four_stars + ?, three_stars = three_stars + ?, two_stars = two_stars + ?, " +
+            "one_star = one_star + ?, version = version + 1, updated_at = ? WHERE product_id = ?";
+
+    private static final String RATED_SINCE = "SELECT product_id FROM rating WHERE updated_at >= ?";
+
+    private static final String SELECT_RATED_STATISTICS = "SELECT product_id, total_ratings, total_stars, five_stars, four_stars, " +
+            "three_stars, two_stars, one_star FROM rating_statistics WHERE product_id IN (" + RATED_SINCE + ")";
+
+    private static final String COUNT_RATED = "SELECT product_id, rating_value, COUNT(*) FROM rating " +
+            "WHERE product_id IN (" + RATED_SINCE + ") GROUP BY product_id, rating_value";
+
+    static final String CHECKPOINT = "rating-statistics-write-behind";
+
+    // Position of the checkpoint while deltas may be pending, 0 once everything was flushed on shutdown
+    private static final long PENDING = 1L;
+
+    // Ratings committed just before a flush may have had their delta recorded after it
+    private static final Duration RECOVERY_MARGIN = Duration.ofMinutes(1);
+
+    private final RatingStatisticsRepository statisticsRepository;
+    private final ProductRepository productRepository;
+    private final RatingStatisticsInitializer statisticsInitializer;
+    private final CategoryStatisticsService categoryStatisticsService;
+    private final JobCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+
+    private final Map<Long, PendingRatingDelta> pending = new ConcurrentHashMap<>();
+
+    public RatingStatisticsBuffer(RatingStatisticsRepository statisticsRepository, ProductRepository productRepository, RatingStatisticsInitializer statisticsInitializer, CategoryStatisticsService categoryStatisticsService, JobCheckpointRepository checkpointRepository, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, CacheManager cacheManager) {
+        this.statisticsRepository = statisticsRepository;
+        this.productRepository = productRepository;
+        this.statisticsInitializer = statisticsInitializer;
+        this.categoryStatisticsService = categoryStatisticsService;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+    }
+
+    @PostConstruct
+    public void start() {
+        JobCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT).orElse(null);
+        if (checkpoint != null && checkpoint.getPosition() == PENDING) {
+            logger.warn("Rating statistics buffer was not flushed on shutdown, recovering products rated since {}", checkpoint.getUpdatedAt());
+            recover(checkpoint.getUpdatedAt().minus(RECOVERY_MARGIN));
+        }
+
+        // Flushes the recovered deltas too, if any
+        markPending();
+        flush();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (pending.values().stream().allMatch(PendingRatingDelta::isEmpty)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                JobCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT).orElseGet(() -> new JobCheckpoint(CHECKPOINT));
+                checkpoint.setPosition(0L);
+                checkpointRepository.save(checkpoint);
+            });
+        }
+    }
+
+    /**
+     * Queues the difference between the statistics of the products rated since the given instant and their
+     * ratings, so the next flush corrects them. Ratings are never deleted, so any rating whose delta was
+     * lost was created or updated since then.
+     */
+    void recover(Instant since) {
+        Timestamp from = Timestamp.from(since);
+
+        Map<Long, int[]> stored = new HashMap<>();
+        jdbcTemplate.query(SELECT_RATED_STATISTICS, rs -> {
+            stored.put(rs.getLong(1), new int[] { rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6),
+                    rs.getInt(7), rs.getInt(8) });
+        }, from);
+
+        Map<Long, int[]> expected = new HashMap<>();
+        jdbcTemplate.query(COUNT_RATED, rs -> {
+            int[] counters = expected.computeIfAbsent(rs.getLong(1), id -> new int[7]);
+            int stars = rs.getInt(2);
+            int count = rs.getInt(3);
+            counters[0] += count;
+            counters[1] += stars * count;
+            // Five stars first, one star last
+            counters[7 - stars] += count;
+        }, from);
+
+        int drifted = 0;
+        for (Map.Entry<Long, int[]> entry : expected.entrySet()) {
+            int[] actual = entry.getValue();
+            int[] current = stored.getOrDefault(entry.getKey(), new int[7]);
+            RatingDelta delta = new RatingDelta(actual[0] - current[0], actual[1] - current[1], actual[2] - current[2],
+                    actual[3] - current[3], actual[4] - current[4], actual[5] - current[5], actual[6] - current[6]);
+            if (delta.isEmpty()) continue;
+
+            pending.computeIfAbsent(entry.getKey(), (id) -> new PendingRatingDelta()).add(delta);
+            drifted++;
+        }
+        logger.info("Recovered rating statistics of {} of {} products rated since {}", drifted, expected.size(), since);
+    }
+
+    /**
+     * Queues the delta once the current transaction commits, so a rolled back rating is never counted.
+     */
+    public void record(Long productId, RatingDelta delta) {
+        TransactionCallbacks.afterCommit(() -> pending.computeIfAbsent(productId, (id) -> new PendingRatingDelta()).add(delta));
+    }
+
+    @Scheduled(fixedDelayString = "${app.rating.write-behind.flush-interval-ms:500}")
+    public synchronized void flush() {
+        Map<Long, RatingDelta> drained = new HashMap<>();
+        pending.forEach((productId, delta) -> {
+            RatingDelta sum = delta.drain();
+            if (!sum.isEmpty()) drained.put(productId, sum);
+        });
+
+        if (drained.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                write(drained);
+                // Ratings recorded before this flush no longer need to be recovered
+                markPending();
+            });
+        } catch (RuntimeException e) {
+            // Put the deltas back so they are retried on the next flush
+            drained.forEach((productId, delta) -> pending.computeIfAbsent(productId, (id) -> new PendingRatingDelta()).add(delta));
+            logger.warn("Could not flush rating statistics of {} products, retrying on next flush", drained.size(), e);
+            return;
+        }
+
+        // Cached product details were evicted when the ratings were saved, but may have been read again since
+        CacheConfig.evictProducts(cacheManager, drained.keySet());
+    }
+
+    private void write(Map<Long, RatingDelta> drained) {
+        List<Long> productIds = new ArrayList<>(drained.keySet());
+        List<Object[]> args = new ArrayList<>(productIds.size());
+        Instant now = Instant.now();
+        for (Long productId : productIds) {
+            RatingDelta delta = drained.get(productId);
+            args.add(new Object[] { delta.getRatings(), delta.getStars(), delta.getFiveStars(), delta.getFourStars(),
+                    delta.getThreeStars(), delta.getTwoStars(), delta.getOneStar(), Timestamp.from(now), productId });
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(APPLY_DELTA, args);
+
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 0) continue;
+
+            // Products created before statistics were introduced have no row yet, and deleted ones never will
+            Long productId = productIds.get(i);
+            if (!productRepository.existsById(productId)) continue;
+
+            RatingDelta delta = drained.get(productId);
+            statisticsInitializer.createIfMissing(productId);
+            statisticsRepository.applyDelta(productId, delta.getRatings(), delta.getStars(), delta.getFiveStars(),
+                    delta.getFourStars(), delta.getThreeStars(), delta.getTwoStars(), delta.getOneStar(), now);
+        }
+
+        jdbcTemplate.batchUpdate(ProductRepository.REFRESH_AVERAGE_RATING + " WHERE id = ?",
+                productIds.stream().map(productId -> new Object[] { productId }).toList());
+        drained.forEach(categoryStatisticsService::record);
+    }
+
+    private void markPending() {
+        JobCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT).orElseGet(() -> new JobCheckpoint(CHECKPOINT));
+        checkpoint.setPosition(PENDING);
+        checkpointRepository.save(checkpoint);
+    }
+}
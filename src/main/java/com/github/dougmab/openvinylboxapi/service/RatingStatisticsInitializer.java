@@ -0,0 +1,49 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the statistics row of products created before statistics were introduced, which concurrent
+ * ratings of the same product can try to do at the same time.
+ * <p>
+ * The row is inserted in the transaction of the caller, which then applies its delta to it, with a
+ * statement that does nothing when the row already exists. A concurrent insert makes it wait for that
+ * transaction instead of failing, so no second connection is ever needed.
+ */
+@Component
+public class RatingStatisticsInitializer {
+
+    private static final String COLUMNS = "(id, product_id, total_ratings, total_stars, five_stars, four_stars, three_stars, two_stars, one_star, version)";
+
+    // Each sequence value starts a block of ids for Hibernate, so using it as is never collides with them
+    private static final String INSERT_IF_ABSENT_POSTGRES = "INSERT INTO rating_statistics " + COLUMNS + " " +
+            "VALUES (nextval('rating_statistics_seq'), ?, 0, 0, 0, 0, 0, 0, 0, 0) ON CONFLICT (product_id) DO NOTHING";
+
+    private static final String INSERT_IF_ABSENT = "MERGE INTO rating_statistics s USING (SELECT CAST(? AS BIGINT) AS product_id) p " +
+            "ON s.product_id = p.product_id WHEN NOT MATCHED THEN INSERT " + COLUMNS + " " +
+            "VALUES (NEXT VALUE FOR rating_statistics_seq, p.product_id, 0, 0, 0, 0, 0, 0, 0, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertIfAbsent;
+
+    public RatingStatisticsInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        this.insertIfAbsent = "PostgreSQL".equals(database) ? INSERT_IF_ABSENT_POSTGRES : INSERT_IF_ABSENT;
+    }
+
+    /**
+     * Creates empty statistics for the product in the current transaction, unless they already exist.
+     */
+    public void createIfMissing(Long productId) {
+        try {
+            jdbcTemplate.update(insertIfAbsent, productId);
+        } catch (DuplicateKeyException e) {
+            // H2 fails the merge once a concurrent insert commits, only that statement is rolled back
+        }
+    }
+}
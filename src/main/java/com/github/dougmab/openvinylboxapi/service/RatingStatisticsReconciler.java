@@ -0,0 +1,309 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.config.CacheConfig;
+import com.github.dougmab.openvinylboxapi.dto.RatingReconciliationReportDTO;
+import com.github.dougmab.openvinylboxapi.entity.JobCheckpoint;
+import com.github.dougmab.openvinylboxapi.repository.JobCheckpointRepository;
+import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Corrects rating statistics that drifted from the rating table, e.g. after a crash between saving a
+ * rating and applying its delta, or ratings deleted without going through {@link RatingService}.
+ * <p>
+ * Products are split into id ranges of {@code app.rating.reconcile.partition-size}, recomputed by
+ * {@code app.rating.reconcile.threads} workers with one grouped query per range. Only rows that differ
+ * are written, guarded by their version so a rating applied meanwhile is never overwritten. The last
+ * range done is saved as a {@link JobCheckpoint}, so a run cut short by a restart resumes from there.
+ * <p>
+ * Off unless {@code app.rating.reconcile.enabled} is set, since statistics kept by deltas only drift
+ * after a failure, and never active with the write-behind buffer, whose deltas are meant to lag behind
+ * the rating table and which corrects the products it may have missed after an unclean shutdown itself.
+ */
+@Component
+@ConditionalOnExpression("${app.rating.reconcile.enabled:false} and !${app.rating.write-behind.enabled:false}")
+public class RatingStatisticsReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingStatisticsReconciler.class);
+
+    static final String CHECKPOINT = "rating-statistics-reconciliation";
+
+    private static final String SELECT_STATISTICS = "SELECT product_id, total_ratings, total_stars, five_stars, four_stars, three_stars, " +
+            "two_stars, one_star, version FROM rating_statistics WHERE product_id BETWEEN ? AND ?";
+
+    private static final String COUNT_RATINGS = "SELECT product_id, rating_value, COUNT(*) FROM rating " +
+            "WHERE product_id BETWEEN ? AND ? GROUP BY product_id, rating_value";
+
+    private static final String PATCH = "UPDATE rating_statistics SET total_ratings = ?, total_stars = ?, five_stars = ?, four_stars = ?, " +
+            "three_stars = ?, two_stars = ?, one_star = ?, version = version + 1, updated_at = ? WHERE product_id = ? AND version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RatingStatisticsInitializer statisticsInitializer;
+    private final JobCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final int partitionSize;
+    private final int threads;
+
+    private final Counter productsCounter;
+    private final Counter patchedCounter;
+    private final Timer partitionTimer;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public RatingStatisticsReconciler(JdbcTemplate jdbcTemplate, RatingStatisticsInitializer statisticsInitializer,
+                                      JobCheckpointRepository checkpointRepository, PlatformTransactionManager transactionManager,
+                                      CacheManager cacheManager, MeterRegistry meterRegistry,
+                                      @Value("${app.rating.reconcile.partition-size:10000}") int partitionSize,
+                                      @Value("${app.rating.reconcile.threads:4}") int threads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.statisticsInitializer = statisticsInitializer;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.partitionSize = partitionSize;
+        this.threads = threads;
+
+        productsCounter = Counter.builder("rating.reconcile.products")
+                .description("Products whose rating statistics were compared with their ratings")
+                .register(meterRegistry);
+        patchedCounter = Counter.builder("rating.reconcile.patched")
+                .description("Rating statistics rows that had drifted and were corrected")
+                .register(meterRegistry);
+        partitionTimer = Timer.builder("rating.reconcile.partition")
+                .description("Time to reconcile one range of product ids")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.rating.reconcile.cron:0 30 3 * * *}")
+    public void run() {
+        reconcile();
+    }
+
+    /**
+     * Reconciles every product after the checkpoint, then resets it for the next run.
+     *
+     * @return What was done, null when a run is already in progress
+     */
+    public RatingReconciliationReportDTO reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Rating statistics reconciliation is already running");
+            return null;
+        }
+
+        try {
+            JobCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT).orElseGet(() -> new JobCheckpoint(CHECKPOINT));
+            long[] ids = jdbcTemplate.queryForObject("SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), -1) FROM product",
+                    (rs, row) -> new long[] { rs.getLong(1), rs.getLong(2) });
+            long from = Math.max(ids[0], checkpoint.getPosition() + 1);
+            if (checkpoint.getPosition() > 0)
+                logger.info("Resuming rating statistics reconciliation after product {}", checkpoint.getPosition());
+
+            RatingReconciliationReportDTO report = reconcile(from, ids[1], checkpoint);
+
+            checkpoint.setPosition(0L);
+            checkpointRepository.save(checkpoint);
+
+            logger.info("Reconciled rating statistics of {} products in {} ms ({} products/s), {} had drifted",
+                    report.getProducts(), report.getElapsedMillis(), Math.round(report.getProductsPerSecond()), report.getPatched());
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Reconciles the products of the id range, moving the checkpoint, when there is one, as ranges
+     * complete in order.
+     */
+    RatingReconciliationReportDTO reconcile(long from, long to, JobCheckpoint checkpoint) {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<PartitionResult>> results = new ArrayList<>();
+        long products = 0;
+        long patched = 0;
+
+        try {
+            for (long low = from; low <= to; low += partitionSize) {
+                long rangeFrom = low;
+                long rangeTo = Math.min(low + partitionSize - 1, to);
+                results.add(executor.submit(() -> partitionTimer.recordCallable(() -> reconcilePartition(rangeFrom, rangeTo))));
+            }
+
+            for (Future<PartitionResult> future : results) {
+                PartitionResult result = future.get();
+                products += result.products;
+                patched += result.patched;
+
+                // Ranges are awaited in order, so everything up to this one is done
+                if (checkpoint != null) {
+                    checkpoint.setPosition(result.to);
+                    checkpoint = checkpointRepository.save(checkpoint);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rating statistics reconciliation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rating statistics reconciliation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new RatingReconciliationReportDTO(from, to, results.size(), products, patched, elapsedMillis);
+    }
+
+    private PartitionResult reconcilePartition(long from, long to) {
+        PartitionResult result = new PartitionResult(to);
+        List<Long> patchedIds = transactionTemplate.execute(status -> {
+            // Statistics are read before the ratings, so a rating committed in between has bumped the version
+            Map<Long, Counters> stored = new HashMap<>();
+            Map<Long, Long> versions = new HashMap<>();
+            jdbcTemplate.query(SELECT_STATISTICS, rs -> {
+                long productId = rs.getLong(1);
+                stored.put(productId, new Counters(rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5),
+                        rs.getLong(6), rs.getLong(7), rs.getLong(8)));
+                versions.put(productId, rs.getLong(9));
+            }, from, to);
+
+            Map<Long, Counters> expected = new HashMap<>();
+            jdbcTemplate.query(COUNT_RATINGS, rs -> {
+                expected.computeIfAbsent(rs.getLong(1), id -> new Counters()).add(rs.getInt(2), rs.getLong(3));
+            }, from, to);
+
+            Set<Long> productIds = new HashSet<>(stored.keySet());
+            productIds.addAll(expected.keySet());
+            result.products = productIds.size();
+
+            List<Long> drifted = new ArrayList<>();
+            List<Object[]> args = new ArrayList<>();
+            Timestamp now = Timestamp.from(Instant.now());
+            for (Long productId : productIds) {
+                Counters actual = expected.getOrDefault(productId, new Counters());
+                if (actual.equals(stored.get(productId))) continue;
+
+                if (!stored.containsKey(productId)) {
+                    // Products created before statistics were introduced have no row yet
+                    statisticsInitializer.createIfMissing(productId);
+                    versions.put(productId, 0L);
+                }
+
+                drifted.add(productId);
+                args.add(new Object[] { actual.ratings, actual.stars, actual.fiveStars, actual.fourStars, actual.threeStars,
+                        actual.twoStars, actual.oneStar, now, productId, versions.get(productId) });
+            }
+
+            if (drifted.isEmpty()) return List.of();
+
+            int[] updated = jdbcTemplate.batchUpdate(PATCH, args);
+            List<Long> patchedIds = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                // A row that changed meanwhile is left to the next run
+                if (updated[i] != 0) patchedIds.add(drifted.get(i));
+            }
+
+            jdbcTemplate.batchUpdate(ProductRepository.REFRESH_AVERAGE_RATING + " WHERE id = ?",
+                    patchedIds.stream().map(productId -> new Object[] { productId }).toList());
+            return patchedIds;
+        });
+
+        result.patched = patchedIds.size();
+        productsCounter.increment(result.products);
+        patchedCounter.increment(result.patched);
+
+        CacheConfig.evictProducts(cacheManager, patchedIds);
+        return result;
+    }
+
+    private static final class PartitionResult {
+        private final long to;
+        private long products;
+        private long patched;
+
+        private PartitionResult(long to) {
+            this.to = to;
+        }
+    }
+
+    /**
+     * Counters of one product, as stored or as recomputed from its ratings
+     */
+    private static final class Counters {
+        private long ratings;
+        private long stars;
+        private long fiveStars;
+        private long fourStars;
+        private long threeStars;
+        private long twoStars;
+        private long oneStar;
+
+        private Counters() {
+        }
+
+        private Counters(long ratings, long stars, long fiveStars, long fourStars, long threeStars, long twoStars, long oneStar) {
+            this.ratings = ratings;
+            this.stars = stars;
+            this.fiveStars = fiveStars;
+            this.fourStars = fourStars;
+            this.threeStars = threeStars;
+            this.twoStars = twoStars;
+            this.oneStar = oneStar;
+        }
+
+        /**
+         * Same counting as {@link RatingDelta}, values outside 1-5 only count in the totals
+         */
+        private void add(int value, long count) {
+            ratings += count;
+            stars += value * count;
+            switch (value) {
+                case 5 -> fiveStars += count;
+                case 4 -> fourStars += count;
+                case 3 -> threeStars += count;
+                case 2 -> twoStars += count;
+                case 1 -> oneStar += count;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Counters other)) return false;
+            return ratings == other.ratings && stars == other.stars && fiveStars == other.fiveStars && fourStars == other.fourStars
+                    && threeStars == other.threeStars && twoStars == other.twoStars && oneStar == other.oneStar;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ratings, stars, fiveStars, fourStars, threeStars, twoStars, oneStar);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel of ids waiting for a deadline. Each deadline is rounded up to a tick and hashed into
+ * one of a fixed number of buckets, so scheduling and cancelling are O(1) and advancing the clock only
+ * looks at the buckets of the ticks that went by. Deadlines further away than one turn of the wheel share
+ * a bucket with nearer ones and are skipped until their tick comes.
+ * <p>
+ * Not thread-safe, callers synchronize.
+ */
+final class TimingWheel {
+
+    private final long tickMillis;
+    private final List<Map<Long, Long>> buckets;
+    private final Map<Long, Long> deadlineTicks = new HashMap<>();
+
+    private long currentTick;
+
+    /**
+     * @param startMillis Epoch millis the clock starts at
+     */
+    TimingWheel(long tickMillis, int size, long startMillis) {
+        if (tickMillis <= 0 || size <= 0)
+            throw new IllegalArgumentException("Tick and size of the timing wheel must be positive");
+
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) buckets.add(new HashMap<>());
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules the id, replacing its previous deadline. A deadline already passed is due on the next advance.
+     */
+    void schedule(long id, long deadlineMillis) {
+        cancel(id);
+
+        // Rounded up, so an id is never due before its deadline
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        deadlineTicks.put(id, tick);
+        bucketOf(tick).put(id, tick);
+    }
+
+    void cancel(long id) {
+        Long tick = deadlineTicks.remove(id);
+        if (tick != null) bucketOf(tick).remove(id);
+    }
+
+    /**
+     * Moves the clock forward and removes the ids whose deadline is at or before it.
+     *
+     * @return The due ids, in no particular order
+     */
+    List<Long> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<Long> due = new ArrayList<>();
+        if (targetTick <= currentTick) return due;
+
+        // After a long pause every bucket is visited once instead of once per elapsed tick
+        long ticks = Math.min(targetTick - currentTick, buckets.size());
+        for (long tick = targetTick - ticks + 1; tick <= targetTick; tick++) {
+            bucketOf(tick).entrySet().removeIf(entry -> {
+                if (entry.getValue() > targetTick) return false;
+
+                due.add(entry.getKey());
+                deadlineTicks.remove(entry.getKey());
+                return true;
+            });
+        }
+
+        currentTick = targetTick;
+        return due;
+    }
+
+    int size() {
+        return deadlineTicks.size();
+    }
+
+    private Map<Long, Long> bucketOf(long tick) {
+        return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+    }
+}
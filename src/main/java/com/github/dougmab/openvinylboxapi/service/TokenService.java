@@ -2,48 +2,82 @@ package com.github.dougmab.openvinylboxapi.service;
 
 import com.github.dougmab.openvinylboxapi.dto.LoginDTO;
 import com.github.dougmab.openvinylboxapi.dto.TokenDTO;
-import com.github.dougmab.openvinylboxapi.dto.UserDTO;
-import com.github.dougmab.openvinylboxapi.entity.Role;
-import com.github.dougmab.openvinylboxapi.entity.User;
-import com.github.dougmab.openvinylboxapi.repository.UserRepository;
+import com.github.dougmab.openvinylboxapi.dto.UserCredentialsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 @Service
 public class TokenService {
 
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+
     private final JwtEncoder jwtEncoder;
-    private final BCryptPasswordEncoder passwordEncoder;
-    private final UserRepository userRepository;
+    private final PasswordHashingService hashingService;
+    private final UserCredentialsService credentialsService;
 
     @Autowired
-    public TokenService(JwtEncoder jwtEncoder, BCryptPasswordEncoder passwordEncoder, UserRepository userRepository) {
+    public TokenService(JwtEncoder jwtEncoder, PasswordHashingService hashingService, UserCredentialsService credentialsService) {
         this.jwtEncoder = jwtEncoder;
-        this.passwordEncoder = passwordEncoder;
-        this.userRepository = userRepository;
+        this.hashingService = hashingService;
+        this.credentialsService = credentialsService;
     }
 
     public TokenDTO generateToken(LoginDTO credentials) {
-        User user = userRepository.findByEmail(credentials.getEmail())
+        return PasswordHashingService.await(generateTokenAsync(credentials));
+    }
+
+    /**
+     * Checks the password on the hashing threads, the token is signed there too once it matches, so the
+     * calling thread is free meanwhile.
+     */
+    public CompletableFuture<TokenDTO> generateTokenAsync(LoginDTO credentials) {
+        UserCredentialsDTO user = credentialsService.findByEmail(credentials.getEmail())
                 .orElseThrow(() -> new BadCredentialsException("Email or password is invalid!"));
 
-        if (!user.isLoginCorrect(credentials, passwordEncoder)) {
-            throw new BadCredentialsException("Email or password is invalid!");
-        }
+        return hashingService.matchesAsync(credentials.getPassword(), user.getPassword()).thenApply(correct -> {
+            if (!correct) {
+                throw new BadCredentialsException("Email or password is invalid!");
+            }
+
+            rehashIfStale(user, credentials.getPassword());
+            return createToken(user);
+        });
+    }
+
+    /**
+     * Encodes the password again with the current cost when its hash is weaker, in the background
+     * so the login doesn't wait for it. Skipped when the hashing threads are saturated, the next login
+     * tries again. The new hash is saved from the common pool, so a slow write never holds a hashing thread.
+     */
+    private void rehashIfStale(UserCredentialsDTO user, String rawPassword) {
+        if (!hashingService.needsRehash(user.getPassword())) return;
+
+        hashingService.encodeAsync(rawPassword)
+                .thenAcceptAsync(rehashed -> credentialsService.replacePassword(user, rehashed), ForkJoinPool.commonPool())
+                .exceptionally(e -> {
+                    logger.warn("Could not rehash the password of user {}: {}", user.getId(), e.getMessage());
+                    return null;
+                });
+    }
 
+    private TokenDTO createToken(UserCredentialsDTO user) {
         Instant now = Instant.now();
         long expiresInSeconds = 3600L;
 
-        String scopes = user.getRoles().stream()
-                .map(Role::getAuthority)
+        String scopes = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(" "));
 
         var claims = JwtClaimsSet.builder()
@@ -56,6 +90,6 @@ public class TokenService {
 
         String jwtToken = jwtEncoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
 
-        return new TokenDTO(jwtToken, expiresInSeconds, new UserDTO(user));
+        return new TokenDTO(jwtToken, expiresInSeconds, user.getUser());
     }
 }
@@ -0,0 +1,108 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.entity.Category;
+import com.github.dougmab.openvinylboxapi.entity.Product;
+import com.github.dougmab.openvinylboxapi.entity.User;
+import com.github.dougmab.openvinylboxapi.repository.CategoryRepository;
+import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import com.github.dougmab.openvinylboxapi.repository.RatingStatisticsRepository;
+import com.github.dougmab.openvinylboxapi.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the total number of rows of the paged tables so paged listings don't run a
+ * count(*) per request. Totals are adjusted after inserts commit, dropped after deletes
+ * and reloaded once they are older than the configured time to live, which bounds the drift
+ * caused by writes that bypass the services.
+ * <p>
+ * A missing or expired total is counted once, in the read-only transaction of the caller, while other
+ * callers of the same entity wait for it instead of each counting on a connection of their own.
+ */
+@Service
+public class TotalCountService {
+
+    private final Map<Class<?>, JpaRepository<?, Long>> repositories;
+    private final RatingStatisticsRepository statisticsRepository;
+    private final TransactionTemplate countTransaction;
+    private final Duration timeToLive;
+
+    private final Map<Class<?>, CachedCount> totals = new ConcurrentHashMap<>();
+
+    public TotalCountService(CategoryRepository categoryRepository, ProductRepository productRepository,
+                             UserRepository userRepository, RatingStatisticsRepository statisticsRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.count-cache.time-to-live:5m}") Duration timeToLive) {
+        this.repositories = Map.of(
+                Category.class, categoryRepository,
+                Product.class, productRepository,
+                User.class, userRepository);
+        this.statisticsRepository = statisticsRepository;
+        this.timeToLive = timeToLive;
+
+        // Joins the transaction of the caller, so counting never takes a second connection
+        this.countTransaction = new TransactionTemplate(transactionManager);
+        this.countTransaction.setReadOnly(true);
+    }
+
+    public long countOf(Class<?> entity) {
+        JpaRepository<?, Long> repository = repositories.get(entity);
+        if (repository == null) throw new IllegalArgumentException(entity.getSimpleName() + " has no cached total");
+
+        CachedCount cached = totals.get(entity);
+        if (cached != null && !isExpired(cached)) return cached.value;
+
+        // A caller that wrote in its transaction would count rows that are not committed yet
+        if (TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            return repository.count();
+
+        return totals.compute(entity, (key, current) -> current != null && !isExpired(current)
+                ? current
+                : new CachedCount(countTransaction.execute(status -> repository.count()), Instant.now())).value;
+    }
+
+    /**
+     * The number of ratings of a product is already kept by its rating statistics.
+     */
+    public long countRatingsOfProduct(Long productId) {
+        return statisticsRepository.findTotalRatingsByProductId(productId).orElse(0);
+    }
+
+    public void registerInsert(Class<?> entity) {
+        registerInserts(entity, 1);
+    }
+
+    public void registerInserts(Class<?> entity, long count) {
+        TransactionCallbacks.afterCommit(() -> totals.computeIfPresent(entity, (key, cached) -> new CachedCount(cached.value + count, cached.loadedAt)));
+    }
+
+    /**
+     * Deleting an id that does not exist is not an error, so the total is reloaded instead of decremented.
+     */
+    public void registerDelete(Class<?> entity) {
+        TransactionCallbacks.afterCommit(() -> totals.remove(entity));
+    }
+
+    private boolean isExpired(CachedCount cached) {
+        return cached.loadedAt.plus(timeToLive).isBefore(Instant.now());
+    }
+
+    private static final class CachedCount {
+        private final long value;
+        private final Instant loadedAt;
+
+        private CachedCount(long value, Instant loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
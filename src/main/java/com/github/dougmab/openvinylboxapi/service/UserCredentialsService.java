@@ -0,0 +1,58 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.config.CacheConfig;
+import com.github.dougmab.openvinylboxapi.dto.UserCredentialsDTO;
+import com.github.dougmab.openvinylboxapi.repository.UserRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Credentials of users by email, cached so repeated logins don't load the user and its roles every time.
+ * {@link UserService} evicts the emails of the users it changes, unknown emails are never cached.
+ */
+@Service
+public class UserCredentialsService {
+
+    private final UserRepository repository;
+    private final CacheManager cacheManager;
+
+    public UserCredentialsService(UserRepository repository, CacheManager cacheManager) {
+        this.repository = repository;
+        this.cacheManager = cacheManager;
+    }
+
+    @Cacheable(cacheNames = CacheConfig.USER_CREDENTIALS, key = "#email", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public Optional<UserCredentialsDTO> findByEmail(String email) {
+        return repository.findByEmail(email).map(UserCredentialsDTO::new);
+    }
+
+    /**
+     * Replaces the password hash of the user unless it changed since it was read.
+     */
+    @CacheEvict(cacheNames = CacheConfig.USER_CREDENTIALS, key = "#credentials.username")
+    public void replacePassword(UserCredentialsDTO credentials, String rehashed) {
+        repository.replacePassword(credentials.getId(), credentials.getPassword(), rehashed);
+    }
+
+    /**
+     * Evicts the credentials of the emails once the current transaction commits, a login in between
+     * would otherwise cache them again as they were.
+     */
+    public void evictAfterCommit(String... emails) {
+        TransactionCallbacks.afterCommit(() -> {
+            Cache cache = cacheManager.getCache(CacheConfig.USER_CREDENTIALS);
+            if (cache == null) return;
+
+            for (String email : emails) {
+                cache.evict(email);
+            }
+        });
+    }
+}
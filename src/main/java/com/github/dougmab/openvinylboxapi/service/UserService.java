@@ -1,5 +1,6 @@
 package com.github.dougmab.openvinylboxapi.service;
 
+import com.github.dougmab.openvinylboxapi.dto.UserCredentialsDTO;
 import com.github.dougmab.openvinylboxapi.dto.UserDTO;
 import com.github.dougmab.openvinylboxapi.dto.UserInsertDTO;
 import com.github.dougmab.openvinylboxapi.entity.Role;
@@ -13,11 +14,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,18 +33,28 @@ public class UserService implements UserDetailsService {
     private final UserRepository repository;
     private final RoleRepository roleRepository;
 
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashingService hashingService;
+    private final TotalCountService totalCountService;
+    private final UserCredentialsService credentialsService;
 
     @Autowired
-    public UserService(UserRepository repository, RoleRepository RoleRepository, BCryptPasswordEncoder passwordEncoder) {
+    public UserService(UserRepository repository, RoleRepository RoleRepository, PasswordHashingService hashingService, TotalCountService totalCountService, UserCredentialsService credentialsService) {
         this.repository = repository;
         this.roleRepository = RoleRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.hashingService = hashingService;
+        this.totalCountService = totalCountService;
+        this.credentialsService = credentialsService;
     }
 
     @Transactional(readOnly = true)
     public Page<UserDTO> findAllPaged(Pageable pageable) {
-        Page<User> list = repository.findAll(pageable);
+        Slice<UserDTO> slice = findAllSliced(pageable);
+        return new PageImpl<>(slice.getContent(), pageable, totalCountService.countOf(User.class));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<UserDTO> findAllSliced(Pageable pageable) {
+        Slice<User> list = repository.findSliceBy(pageable);
         return list.map(UserDTO::new);
     }
 
@@ -55,12 +67,13 @@ public class UserService implements UserDetailsService {
     @Transactional
     public UserDTO insert(UserInsertDTO dto) {
         User user = new User(dto);
-        user.setPassword(passwordEncoder.encode(dto.getPassword()));
+        user.setPassword(hashingService.encode(dto.getPassword()));
 
         user.getRoles().add(roleRepository.findByAuthority(Role.Authorities.USER.name()));
 
         try {
             User entity = repository.save(user);
+            totalCountService.registerInsert(User.class);
 
             return new UserDTO(entity);
         } catch (DataIntegrityViolationException e) {
@@ -72,6 +85,8 @@ public class UserService implements UserDetailsService {
     public UserDTO update(Long id, UserDTO dto) {
         try {
             User entity = repository.getReferenceById(id);
+            credentialsService.evictAfterCommit(entity.getEmail(), dto.getEmail());
+
             entity.setFirstName(dto.getFirstName());
             entity.setLastName(dto.getLastName());
             entity.setEmail(dto.getEmail());
@@ -98,7 +113,10 @@ public class UserService implements UserDetailsService {
 
     public void delete(Long id) {
         try {
+            Optional<String> email = repository.findById(id).map(User::getEmail);
             repository.deleteById(id);
+            totalCountService.registerDelete(User.class);
+            email.ifPresent(credentialsService::evictAfterCommit);
         } catch (DataIntegrityViolationException e) {
             throw ExceptionFactory.dataIntegrityViolationForeignKey(User.class);
         }
@@ -106,7 +124,7 @@ public class UserService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Optional<User> user = repository.findByEmail(username);
+        Optional<UserCredentialsDTO> user = credentialsService.findByEmail(username);
 
         if (user.isEmpty()) {
             logger.error("User not found: {}", username);
@@ -0,0 +1,14 @@
+-- Creates the per category rating statistics. The application builds the rows from the rating table on
+-- its first start with an empty table.
+
+CREATE TABLE IF NOT EXISTS category_rating_statistics (
+    category_id BIGINT PRIMARY KEY,
+    total_ratings BIGINT NOT NULL DEFAULT 0,
+    total_stars BIGINT NOT NULL DEFAULT 0,
+    five_stars BIGINT NOT NULL DEFAULT 0,
+    four_stars BIGINT NOT NULL DEFAULT 0,
+    three_stars BIGINT NOT NULL DEFAULT 0,
+    two_stars BIGINT NOT NULL DEFAULT 0,
+    one_star BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITHOUT TIME ZONE
+);
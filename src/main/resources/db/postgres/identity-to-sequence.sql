@@ -0,0 +1,26 @@
+-- Moves an existing database from IDENTITY columns to the pooled sequences used by the entities.
+-- Run once before deploying the version that introduced them. The increment must match allocationSize.
+
+CREATE SEQUENCE IF NOT EXISTS category_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS discount_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS product_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS rating_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS rating_statistics_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS roles_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+
+SELECT setval('category_seq', COALESCE((SELECT MAX(id) FROM category), 0) + 1, false);
+SELECT setval('discount_seq', COALESCE((SELECT MAX(id) FROM discount), 0) + 1, false);
+SELECT setval('product_seq', COALESCE((SELECT MAX(id) FROM product), 0) + 1, false);
+SELECT setval('rating_seq', COALESCE((SELECT MAX(id) FROM rating), 0) + 1, false);
+SELECT setval('rating_statistics_seq', COALESCE((SELECT MAX(id) FROM rating_statistics), 0) + 1, false);
+SELECT setval('roles_seq', COALESCE((SELECT MAX(id) FROM roles), 0) + 1, false);
+SELECT setval('users_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 1, false);
+
+ALTER TABLE category ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE discount ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE product ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE rating ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE rating_statistics ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE roles ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
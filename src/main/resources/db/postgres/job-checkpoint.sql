@@ -0,0 +1,7 @@
+-- Creates the table long running jobs save their progress in.
+
+CREATE TABLE IF NOT EXISTS job_checkpoint (
+    name VARCHAR(255) PRIMARY KEY,
+    position BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITHOUT TIME ZONE
+);
@@ -0,0 +1,3 @@
+-- Covering index for listing the products of a category straight from the join table.
+
+CREATE INDEX IF NOT EXISTS idx_product_category_category_product ON product_category (category_id, product_id);
@@ -0,0 +1,18 @@
+-- Lets several products share one discount. The unique constraint Hibernate generated for the former
+-- one-to-one mapping has a random name, so it is looked up.
+
+DO $$
+DECLARE
+    constraint_name TEXT;
+BEGIN
+    FOR constraint_name IN
+        SELECT c.conname FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)
+        WHERE c.conrelid = 'product'::regclass AND c.contype = 'u' AND a.attname = 'discount_id' AND array_length(c.conkey, 1) = 1
+    LOOP
+        EXECUTE format('ALTER TABLE product DROP CONSTRAINT %I', constraint_name);
+    END LOOP;
+END $$;
+
+-- Expiry and discount removal look products up by their discount
+CREATE INDEX IF NOT EXISTS idx_product_discount_id ON product (discount_id);
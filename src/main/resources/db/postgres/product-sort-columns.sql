@@ -0,0 +1,10 @@
+-- Adds the persisted average rating and discounted price columns the catalog can be sorted by.
+
+ALTER TABLE product ADD COLUMN IF NOT EXISTS average_rating DOUBLE PRECISION NOT NULL DEFAULT 0;
+ALTER TABLE product ADD COLUMN IF NOT EXISTS effective_price DOUBLE PRECISION;
+
+UPDATE product SET average_rating = COALESCE((SELECT CASE WHEN s.total_ratings > 0 THEN ROUND(CAST(s.total_stars AS DECIMAL(12, 2)) / s.total_ratings, 1) ELSE 0 END FROM rating_statistics s WHERE s.product_id = product.id), 0);
+UPDATE product SET effective_price = COALESCE((SELECT ROUND(CAST(product.price * (100 - d.percentage) AS NUMERIC)) / 100.0 FROM discount d WHERE d.id = product.discount_id), price);
+
+CREATE INDEX IF NOT EXISTS idx_product_average_rating_id ON product (average_rating, id);
+CREATE INDEX IF NOT EXISTS idx_product_effective_price_id ON product (effective_price, id);
@@ -0,0 +1,5 @@
+-- Lets a single statistics row exist per product, so concurrent ratings creating it can't both succeed.
+-- Duplicates left by earlier races are removed first, run the reconciler afterwards to correct the one kept.
+
+DELETE FROM rating_statistics s USING rating_statistics d WHERE s.product_id = d.product_id AND s.id > d.id;
+CREATE UNIQUE INDEX IF NOT EXISTS rating_statistics_product_id_key ON rating_statistics (product_id);
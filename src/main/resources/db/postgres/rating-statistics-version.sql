@@ -0,0 +1,4 @@
+-- Adds the columns used to build the ETag and Last-Modified headers of product details.
+
+ALTER TABLE rating_statistics ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE rating_statistics ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITHOUT TIME ZONE;
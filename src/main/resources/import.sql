@@ -1,38 +1,38 @@
-INSERT INTO users (first_name, last_name, email, password) VALUES ('User', 'Tester', 'test@example.com','$2a$10$u06mL5aQs7J8lbnMWuIulu1zwW2.Pf.ESkAt/jPkDrTbPN12u2eHe');
-INSERT INTO users (first_name, last_name, email, password) VALUES ('Juan', 'Perez', 'juann@gmail.com', '$2a$10$3FV4k9zQj0zg1Z5Hl2qy8e7Y8q3JZ2HtY5jX0Xz9Z1zj9XeZcZ8Jq');
-INSERT INTO users (first_name, last_name, email, password) VALUES ('Maria', 'Gomez', 'maria@gmail.com', '$2a$10$3FV4k9zQj0zg1Z5Hl2qy8e7Y8q3JZ2HtY5jX0Xz9Z1zj9XeZcZ8Jq');
+INSERT INTO users (id, first_name, last_name, email, password) VALUES (1, 'User', 'Tester', 'test@example.com','$2a$10$u06mL5aQs7J8lbnMWuIulu1zwW2.Pf.ESkAt/jPkDrTbPN12u2eHe');
+INSERT INTO users (id, first_name, last_name, email, password) VALUES (2, 'Juan', 'Perez', 'juann@gmail.com', '$2a$10$3FV4k9zQj0zg1Z5Hl2qy8e7Y8q3JZ2HtY5jX0Xz9Z1zj9XeZcZ8Jq');
+INSERT INTO users (id, first_name, last_name, email, password) VALUES (3, 'Maria', 'Gomez', 'maria@gmail.com', '$2a$10$3FV4k9zQj0zg1Z5Hl2qy8e7Y8q3JZ2HtY5jX0Xz9Z1zj9XeZcZ8Jq');
 
-INSERT INTO roles (authority) VALUES ('ADMIN');
-INSERT INTO roles (authority) VALUES ('USER');
+INSERT INTO roles (id, authority) VALUES (1, 'ADMIN');
+INSERT INTO roles (id, authority) VALUES (2, 'USER');
 
 INSERT INTO user_role (user_id, role_id) VALUES (1, 2);
 INSERT INTO user_role (user_id, role_id) VALUES (2, 1);
 INSERT INTO user_role (user_id, role_id) VALUES (2, 2);
 
-INSERT INTO category (name, created_at) VALUES ('Jazz', NOW());
-INSERT INTO category (name, created_at) VALUES ('Pop', NOW());
-INSERT INTO category (name, created_at) VALUES ('Rock', NOW());
-INSERT INTO category (name, created_at) VALUES ('Chill', NOW());
-INSERT INTO category (name, created_at) VALUES ('Rap', NOW());
-INSERT INTO category (name, created_at) VALUES ('Classical', NOW());
-INSERT INTO category (name, created_at) VALUES ('Country', NOW());
-INSERT INTO category (name, created_at) VALUES ('Blues', NOW());
-INSERT INTO category (name, created_at) VALUES ('Reggae', NOW());
-INSERT INTO category (name, created_at) VALUES ('Electronic', NOW());
-INSERT INTO category (name, created_at) VALUES ('Metal', NOW());
-INSERT INTO category (name, created_at) VALUES ('Alternative', NOW());
-
-INSERT INTO product (name, price, img_url, created_at, updated_at) VALUES ('The Best of Miles Davis', 9.99, 'https://picsum.photos/400', NOW(), null);
-INSERT INTO product (name, price, img_url, created_at, updated_at) VALUES ('The Best of The Beatles', 9.99, 'https://picsum.photos/400', NOW(), null);
-INSERT INTO product (name, price, img_url, created_at, updated_at) VALUES ('The Best of The Rolling Stones', 9.99, 'https://picsum.photos/400', NOW(), null);
-INSERT INTO product (name, price, img_url, created_at, updated_at) VALUES ('The Best of Bob Marley', 9.99, 'https://picsum.photos/400', NOW(), null);
-INSERT INTO product (name, price, img_url, created_at, updated_at) VALUES ('The Best of Eminem', 9.99, 'https://picsum.photos/400', NOW(), null);
-INSERT INTO product (name, price, img_url, created_at, updated_at) VALUES ('The Best of Beethoven', 9.99, 'https://picsum.photos/400', NOW(), null);
-INSERT INTO product (name, price, img_url, created_at, updated_at) VALUES ('The Best of Johnny Cash', 9.99, 'https://picsum.photos/400', NOW(), null);
-INSERT INTO product (name, price, img_url, created_at, updated_at) VALUES ('The Best of B.B. King', 9.99, 'https://picsum.photos/400', NOW(), null);
-INSERT INTO product (name, price, img_url, created_at, updated_at) VALUES ('The Best of Daft Punk', 9.99, 'https://picsum.photos/400', NOW(), null);
-INSERT INTO product (name, price, img_url, created_at, updated_at) VALUES ('The Best of Metallica', 9.99, 'https://picsum.photos/400', NOW(), null);
-INSERT INTO product (name, price, img_url, created_at, updated_at) VALUES ('The Best of SIAMES', 9.99, 'https://picsum.photos/400', NOW(), null);
+INSERT INTO category (id, name, created_at) VALUES (1, 'Jazz', NOW());
+INSERT INTO category (id, name, created_at) VALUES (2, 'Pop', NOW());
+INSERT INTO category (id, name, created_at) VALUES (3, 'Rock', NOW());
+INSERT INTO category (id, name, created_at) VALUES (4, 'Chill', NOW());
+INSERT INTO category (id, name, created_at) VALUES (5, 'Rap', NOW());
+INSERT INTO category (id, name, created_at) VALUES (6, 'Classical', NOW());
+INSERT INTO category (id, name, created_at) VALUES (7, 'Country', NOW());
+INSERT INTO category (id, name, created_at) VALUES (8, 'Blues', NOW());
+INSERT INTO category (id, name, created_at) VALUES (9, 'Reggae', NOW());
+INSERT INTO category (id, name, created_at) VALUES (10, 'Electronic', NOW());
+INSERT INTO category (id, name, created_at) VALUES (11, 'Metal', NOW());
+INSERT INTO category (id, name, created_at) VALUES (12, 'Alternative', NOW());
+
+INSERT INTO product (id, name, price, img_url, created_at, updated_at) VALUES (1, 'The Best of Miles Davis', 9.99, 'https://picsum.photos/400', NOW(), null);
+INSERT INTO product (id, name, price, img_url, created_at, updated_at) VALUES (2, 'The Best of The Beatles', 9.99, 'https://picsum.photos/400', NOW(), null);
+INSERT INTO product (id, name, price, img_url, created_at, updated_at) VALUES (3, 'The Best of The Rolling Stones', 9.99, 'https://picsum.photos/400', NOW(), null);
+INSERT INTO product (id, name, price, img_url, created_at, updated_at) VALUES (4, 'The Best of Bob Marley', 9.99, 'https://picsum.photos/400', NOW(), null);
+INSERT INTO product (id, name, price, img_url, created_at, updated_at) VALUES (5, 'The Best of Eminem', 9.99, 'https://picsum.photos/400', NOW(), null);
+INSERT INTO product (id, name, price, img_url, created_at, updated_at) VALUES (6, 'The Best of Beethoven', 9.99, 'https://picsum.photos/400', NOW(), null);
+INSERT INTO product (id, name, price, img_url, created_at, updated_at) VALUES (7, 'The Best of Johnny Cash', 9.99, 'https://picsum.photos/400', NOW(), null);
+INSERT INTO product (id, name, price, img_url, created_at, updated_at) VALUES (8, 'The Best of B.B. King', 9.99, 'https://picsum.photos/400', NOW(), null);
+INSERT INTO product (id, name, price, img_url, created_at, updated_at) VALUES (9, 'The Best of Daft Punk', 9.99, 'https://picsum.photos/400', NOW(), null);
+INSERT INTO product (id, name, price, img_url, created_at, updated_at) VALUES (10, 'The Best of Metallica', 9.99, 'https://picsum.photos/400', NOW(), null);
+INSERT INTO product (id, name, price, img_url, created_at, updated_at) VALUES (11, 'The Best of SIAMES', 9.99, 'https://picsum.photos/400', NOW(), null);
 
 INSERT INTO product_category (product_id, category_id) VALUES (1, 1);
 INSERT INTO product_category (product_id, category_id) VALUES (2, 2);
@@ -47,14 +47,23 @@ INSERT INTO product_category (product_id, category_id) VALUES (8, 8);
 INSERT INTO product_category (product_id, category_id) VALUES (9, 10);
 INSERT INTO product_category (product_id, category_id) VALUES (10, 11);
 
-INSERT INTO rating_statistics (five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id) VALUES (0, 0, 0, 0, 0, 0, 0, 1);
-INSERT INTO rating_statistics (five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id) VALUES (2, 2, 0, 0, 0, 18, 4, 2);
-INSERT INTO rating_statistics (five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id) VALUES (1, 2, 1, 0, 0, 16, 4, 3);
-INSERT INTO rating_statistics (five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id) VALUES (0, 2, 0, 0, 0, 8, 2, 4);
-INSERT INTO rating_statistics (five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id) VALUES (1, 2, 0, 0, 0, 13, 3, 5);
-INSERT INTO rating_statistics (five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id) VALUES (1, 3, 0, 0, 0, 17, 4, 6);
-INSERT INTO rating_statistics (five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id) VALUES (1, 2, 0, 0, 0, 13, 3, 7);
-INSERT INTO rating_statistics (five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id) VALUES (1, 0, 0, 0, 0, 5, 1, 8);
-INSERT INTO rating_statistics (five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id) VALUES (1, 2, 0, 0, 0, 13, 3, 9);
-INSERT INTO rating_statistics (five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id) VALUES (1, 2, 0, 0, 0, 13, 3, 10);
-INSERT INTO rating_statistics (five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id) VALUES (1, 2, 0, 3, 0, 19, 6, 11);
\ No newline at end of file
+INSERT INTO rating_statistics (id, five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id, version) VALUES (1, 0, 0, 0, 0, 0, 0, 0, 1, 0);
+INSERT INTO rating_statistics (id, five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id, version) VALUES (2, 2, 2, 0, 0, 0, 18, 4, 2, 0);
+INSERT INTO rating_statistics (id, five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id, version) VALUES (3, 1, 2, 1, 0, 0, 16, 4, 3, 0);
+INSERT INTO rating_statistics (id, five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id, version) VALUES (4, 0, 2, 0, 0, 0, 8, 2, 4, 0);
+INSERT INTO rating_statistics (id, five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id, version) VALUES (5, 1, 2, 0, 0, 0, 13, 3, 5, 0);
+INSERT INTO rating_statistics (id, five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id, version) VALUES (6, 1, 3, 0, 0, 0, 17, 4, 6, 0);
+INSERT INTO rating_statistics (id, five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id, version) VALUES (7, 1, 2, 0, 0, 0, 13, 3, 7, 0);
+INSERT INTO rating_statistics (id, five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id, version) VALUES (8, 1, 0, 0, 0, 0, 5, 1, 8, 0);
+INSERT INTO rating_statistics (id, five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id, version) VALUES (9, 1, 2, 0, 0, 0, 13, 3, 9, 0);
+INSERT INTO rating_statistics (id, five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id, version) VALUES (10, 1, 2, 0, 0, 0, 13, 3, 10, 0);
+INSERT INTO rating_statistics (id, five_stars, four_stars, three_stars, two_stars, one_star, total_stars, total_ratings, product_id, version) VALUES (11, 1, 2, 0, 3, 0, 19, 6, 11, 0);
+
+UPDATE product SET average_rating = COALESCE((SELECT CASE WHEN s.total_ratings > 0 THEN ROUND(CAST(s.total_stars AS DECIMAL(12, 2)) / s.total_ratings, 1) ELSE 0 END FROM rating_statistics s WHERE s.product_id = product.id), 0), effective_price = price;
+INSERT INTO category_rating_statistics (category_id, total_ratings, total_stars, five_stars, four_stars, three_stars, two_stars, one_star, updated_at) SELECT c.id, COALESCE(SUM(s.total_ratings), 0), COALESCE(SUM(s.total_stars), 0), COALESCE(SUM(s.five_stars), 0), COALESCE(SUM(s.four_stars), 0), COALESCE(SUM(s.three_stars), 0), COALESCE(SUM(s.two_stars), 0), COALESCE(SUM(s.one_star), 0), NOW() FROM category c LEFT JOIN product_category pc ON pc.category_id = c.id LEFT JOIN rating_statistics s ON s.product_id = pc.product_id GROUP BY c.id UNION ALL SELECT 0, COALESCE(SUM(total_ratings), 0), COALESCE(SUM(total_stars), 0), COALESCE(SUM(five_stars), 0), COALESCE(SUM(four_stars), 0), COALESCE(SUM(three_stars), 0), COALESCE(SUM(two_stars), 0), COALESCE(SUM(one_star), 0), NOW() FROM rating_statistics;
+
+ALTER SEQUENCE users_seq RESTART WITH 4;
+ALTER SEQUENCE roles_seq RESTART WITH 3;
+ALTER SEQUENCE category_seq RESTART WITH 13;
+ALTER SEQUENCE product_seq RESTART WITH 12;
+ALTER SEQUENCE rating_statistics_seq RESTART WITH 12;
@@ -0,0 +1,69 @@
+package com.github.dougmab.openvinylboxapi.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingJwtDecoderTests {
+
+    private JwtDecoder delegate;
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(JwtDecoder.class);
+        decoder = new CachingJwtDecoder(delegate, 100);
+    }
+
+    @Test
+    public void decodeShouldVerifyEachTokenOnce() {
+        when(delegate.decode("valid")).thenReturn(jwt("valid", Instant.now().plusSeconds(3600)));
+
+        Jwt first = decoder.decode("valid");
+        Jwt second = decoder.decode("valid");
+
+        assertThat(second).isSameAs(first);
+        verify(delegate, times(1)).decode("valid");
+    }
+
+    @Test
+    public void decodeShouldNotKeepExpiredTokens() {
+        when(delegate.decode("expired")).thenReturn(jwt("expired", Instant.now().minusSeconds(1)));
+
+        decoder.decode("expired");
+        decoder.decode("expired");
+
+        verify(delegate, times(2)).decode("expired");
+        assertThat(decoder.size()).isZero();
+    }
+
+    @Test
+    public void decodeShouldNotKeepInvalidTokens() {
+        when(delegate.decode("invalid")).thenThrow(new BadJwtException("Invalid signature"));
+
+        assertThatThrownBy(() -> decoder.decode("invalid")).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> decoder.decode("invalid")).isInstanceOf(BadJwtException.class);
+
+        verify(delegate, times(2)).decode("invalid");
+    }
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject("1")
+                .issuedAt(expiresAt.minusSeconds(3600))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
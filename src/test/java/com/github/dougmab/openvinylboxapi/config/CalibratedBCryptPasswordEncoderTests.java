@@ -0,0 +1,35 @@
+package com.github.dougmab.openvinylboxapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CalibratedBCryptPasswordEncoderTests {
+
+    @Test
+    public void upgradeEncodingShouldBeTrueOnlyForHashesOfWeakerCost() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password"))).isFalse();
+        assertThat(encoder.upgradeEncoding(encoder.encode("password"))).isFalse();
+        assertThat(encoder.upgradeEncoding("plain")).isFalse();
+    }
+
+    @Test
+    public void upgradeEncodingShouldBeTrueForHashesOfAnotherCostWhenDowngrading() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5, true);
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password"))).isTrue();
+        assertThat(encoder.upgradeEncoding(encoder.encode("password"))).isFalse();
+        assertThat(encoder.upgradeEncoding("plain")).isFalse();
+    }
+
+    @Test
+    public void calibrateShouldStayWithinTheStrengthBounds() {
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(0, 4, 6).getStrength()).isEqualTo(4);
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(Long.MAX_VALUE, 4, 6).getStrength()).isEqualTo(6);
+    }
+}
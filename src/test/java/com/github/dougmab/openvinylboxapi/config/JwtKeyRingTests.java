@@ -0,0 +1,100 @@
+package com.github.dougmab.openvinylboxapi.config;
+
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JwtKeyRingTests {
+
+    private RSAKey configuredKey;
+    private ECKey configuredEcKey;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        configuredKey = new RSAKeyGenerator(2048).generate();
+        configuredEcKey = new ECKeyGenerator(Curve.P_256).generate();
+    }
+
+    @Test
+    public void tokensShouldBeSignedWithTheConfiguredAlgorithm() {
+        JwtKeyRing keyRing = new JwtKeyRing("ES256", configuredKey, configuredEcKey, false, 60_000);
+
+        Jwt jwt = keyRing.createDecoder().decode(sign(keyRing));
+
+        assertThat(jwt.getHeaders()).containsEntry("alg", "ES256");
+        assertThat(jwt.getHeaders()).containsEntry("kid", keyRing.getSigningKey().getKeyID());
+    }
+
+    @Test
+    public void es256TokensShouldBeSignedWithTheConfiguredEcKeyUntilRotation() throws Exception {
+        JwtKeyRing keyRing = new JwtKeyRing("ES256", configuredKey, configuredEcKey, true, 60_000);
+        String keyId = configuredEcKey.computeThumbprint().toString();
+
+        assertThat(keyRing.getSigningKey().getKeyID()).isEqualTo(keyId);
+        assertThat(keyRing.getSigningKey().toECKey().toECPublicKey()).isEqualTo(configuredEcKey.toECPublicKey());
+
+        keyRing.rotate();
+
+        assertThat(keyRing.getSigningKey().getKeyID()).isNotEqualTo(keyId);
+    }
+
+    @Test
+    public void rotateShouldKeepVerifyingTokensOfRetiredKeys() {
+        JwtKeyRing keyRing = new JwtKeyRing("RS256", configuredKey, null, true, 60_000);
+        String before = sign(keyRing);
+        String previousKeyId = keyRing.getSigningKey().getKeyID();
+
+        keyRing.rotate();
+        String after = sign(keyRing);
+
+        assertThat(keyRing.getSigningKey().getKeyID()).isNotEqualTo(previousKeyId);
+        assertThat(keyRing.createDecoder().decode(before).getSubject()).isEqualTo("1");
+        assertThat(keyRing.createDecoder().decode(after).getSubject()).isEqualTo("1");
+        assertThat(keyRing.getPublicKeys().getKeys()).hasSize(2).noneMatch(key -> key.isPrivate());
+    }
+
+    @Test
+    public void rotateShouldStopVerifyingTokensOfExpiredKeys() {
+        JwtKeyRing keyRing = new JwtKeyRing("RS256", configuredKey, null, true, 0);
+        String before = sign(keyRing);
+
+        keyRing.rotate();
+
+        assertThatThrownBy(() -> keyRing.createDecoder().decode(before)).isInstanceOf(JwtException.class);
+        assertThat(keyRing.getPublicKeys().getKeys()).hasSize(1);
+    }
+
+    @Test
+    public void constructorShouldThrowIllegalArgumentExceptionWhenAlgorithmIsNotSupported() {
+        assertThatThrownBy(() -> new JwtKeyRing("HS256", configuredKey, configuredEcKey, false, 60_000)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void constructorShouldThrowIllegalArgumentExceptionWhenEs256HasNoEcKey() {
+        assertThatThrownBy(() -> new JwtKeyRing("ES256", configuredKey, null, false, 60_000)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String sign(JwtKeyRing keyRing) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .subject("1")
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(3600))
+                .build();
+
+        return keyRing.createEncoder().encode(JwtEncoderParameters.from(claims)).getTokenValue();
+    }
+}
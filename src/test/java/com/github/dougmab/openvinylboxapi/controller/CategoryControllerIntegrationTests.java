@@ -2,8 +2,10 @@ package com.github.dougmab.openvinylboxapi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.dougmab.openvinylboxapi.dto.CategoryDTO;
+import com.github.dougmab.openvinylboxapi.dto.LoginDTO;
 import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
 import com.github.dougmab.openvinylboxapi.repository.CategoryRepository;
+import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
 import com.github.dougmab.openvinylboxapi.service.TokenService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +18,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -36,6 +40,9 @@ public class CategoryControllerIntegrationTests {
     @Autowired
     private CategoryRepository repository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
     @Autowired
     private TokenService tokenService;
 
@@ -105,6 +112,30 @@ public class CategoryControllerIntegrationTests {
                 );
     }
 
+    @Test
+    @WithUserDetails("test@example.com")
+    public void findProductsShouldReturnPageOfProductsOfCategory() throws Exception {
+        mockMvc.perform(get("/category/{id}/products", 3L)
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.content.length()").value(2),
+                        jsonPath("$.result.content[0].id").value(2),
+                        jsonPath("$.result.content[1].id").value(3),
+                        jsonPath("$.result.content[1].categories.length()").value(2),
+                        jsonPath("$.result.page.totalElements").value(2)
+                );
+    }
+
+    @Test
+    @WithUserDetails("test@example.com")
+    public void findProductsShouldReturnNotFoundWhenCategoryDoesNotExist() throws Exception {
+        mockMvc.perform(get("/category/{id}/products", nonExistingId)
+                        .accept("application/json"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.result.status").value(404));
+    }
+
     @Test
     @WithUserDetails("test@example.com")
     public void findByIdShouldReturnNotFoundWhenIdDoesNotExist() throws Exception {
@@ -178,6 +209,73 @@ public class CategoryControllerIntegrationTests {
         assertThat(repository.count()).isEqualTo(countTotalCategories);
     }
 
+    @Test
+    @WithUserDetails("test@example.com")
+    public void findStatisticsShouldAggregateRatingsOfCategoryProducts() throws Exception {
+        mockMvc.perform(get("/category/{id}/statistics", 3L)
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.categoryId").value(3),
+                        jsonPath("$.result.totalRatings").value(8),
+                        jsonPath("$.result.totalStars").value(34),
+                        jsonPath("$.result.averageRating").value(4.3),
+                        jsonPath("$.result.fiveStars").value(3),
+                        jsonPath("$.result.fourStars").value(4),
+                        jsonPath("$.result.threeStars").value(1)
+                );
+    }
+
+    @Test
+    @WithUserDetails("test@example.com")
+    public void findStatisticsShouldReturn404WhenIdDoesNotExist() throws Exception {
+        mockMvc.perform(get("/category/{id}/statistics", nonExistingId)
+                        .accept("application/json"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithUserDetails("test@example.com")
+    public void findStoreStatisticsShouldReturnStoreWideRow() throws Exception {
+        mockMvc.perform(get("/category/statistics")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.categoryId").value(0),
+                        jsonPath("$.result.totalRatings").isNumber()
+                );
+    }
+
+    @Test
+    public void createDiscountShouldDiscountEveryProductOfCategoryWithOneDiscount() throws Exception {
+        String adminToken = tokenService.generateToken(new LoginDTO("admin@openvinylbox.com", "admin")).getAccessToken();
+
+        mockMvc.perform(post("/category/{id}/discount", 3L)
+                        .header("Authorization", "Bearer " + adminToken)
+                        .accept("application/json")
+                        .contentType("application/json")
+                        .content("{\"percentage\": 20, \"durationInMinutes\": 60}"))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.affectedProducts").value(2),
+                        jsonPath("$.result.discount.percentage").value(20)
+                );
+
+        var products = productRepository.findAllById(List.of(2L, 3L));
+        assertThat(products).extracting(product -> product.getDiscount().getId()).containsOnly(products.get(0).getDiscount().getId());
+        assertThat(products).extracting("effectivePrice").containsOnly(7.99);
+    }
+
+    @Test
+    @WithUserDetails("test@example.com")
+    public void createDiscountShouldReturnForbiddenWhenUserHasNotEnoughScope() throws Exception {
+        mockMvc.perform(post("/category/{id}/discount", 3L)
+                        .accept("application/json")
+                        .contentType("application/json")
+                        .content("{\"percentage\": 20, \"durationInMinutes\": 60}"))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @WithUserDetails("test@example.com")
@@ -4,7 +4,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.dougmab.openvinylboxapi.config.SecurityConfig;
 import com.github.dougmab.openvinylboxapi.dto.CategoryDTO;
 import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
+import com.github.dougmab.openvinylboxapi.payload.ResourceVersion;
 import com.github.dougmab.openvinylboxapi.service.CategoryService;
+import com.github.dougmab.openvinylboxapi.service.CategoryStatisticsService;
+import com.github.dougmab.openvinylboxapi.service.ProductService;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +22,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -44,6 +48,12 @@ public class CategoryControllerTests {
     @MockBean
     private CategoryService service;
 
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private CategoryStatisticsService statisticsService;
+
     private CategoryDTO categoryDTO;
     private Page<CategoryDTO> page;
 
@@ -67,6 +77,8 @@ public class CategoryControllerTests {
 
         when(service.findById(existingId)).thenReturn(categoryDTO);
         when(service.findById(nonExistingId)).thenThrow(EntityNotFoundException.class);
+        when(service.findVersionById(existingId)).thenReturn(ResourceVersion.of(Instant.now(), existingId));
+        when(service.findVersionById(nonExistingId)).thenThrow(EntityNotFoundException.class);
 
         when(service.insert(any(CategoryDTO.class))).thenReturn(categoryDTO);
 
@@ -0,0 +1,35 @@
+package com.github.dougmab.openvinylboxapi.controller;
+
+import com.github.dougmab.openvinylboxapi.config.JwtKeyRing;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class JwksControllerIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @Test
+    public void jwksShouldReturnPublicKeysWithoutAuthentication() throws Exception {
+        mockMvc.perform(get("/.well-known/jwks.json")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keys[*].kid").value(hasItem(keyRing.getSigningKey().getKeyID())))
+                .andExpect(jsonPath("$.keys[0].d").doesNotExist());
+    }
+}
@@ -1,21 +1,32 @@
 package com.github.dougmab.openvinylboxapi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dougmab.openvinylboxapi.config.CacheConfig;
+import com.github.dougmab.openvinylboxapi.dto.CategoryDTO;
+import com.github.dougmab.openvinylboxapi.dto.LoginDTO;
 import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
 import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
 import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import com.github.dougmab.openvinylboxapi.service.TokenService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -34,6 +45,14 @@ public class ProductControllerIntegrationTests {
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private String adminToken;
+
     private long existingId;
     private long nonExistingId;
     private long countTotalProducts;
@@ -48,6 +67,15 @@ public class ProductControllerIntegrationTests {
 
         productDTO = EntityFactory.createProductDTO(existingId);
         productDTO.getCategories().add(EntityFactory.createCategoryDTO(1L));
+
+        adminToken = tokenService.generateToken(new LoginDTO("admin@openvinylbox.com", "admin")).getAccessToken();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Rolled back changes must not outlive the test in the product caches
+        cacheManager.getCache(CacheConfig.PRODUCT_DETAILS).clear();
+        cacheManager.getCache(CacheConfig.PRODUCT_VERSIONS).clear();
     }
 
     @Test
@@ -87,6 +115,95 @@ public class ProductControllerIntegrationTests {
                 );
     }
 
+    @Test
+    @WithUserDetails("test@example.com")
+    public void findAllByCategoriesShouldReturnProductsInEveryCategory() throws Exception {
+        mockMvc.perform(get("/product?category=3,8")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.content.length()").value(1),
+                        jsonPath("$.result.content[0].id").value(3),
+                        jsonPath("$.result.page.totalElements").value(1)
+                );
+
+        mockMvc.perform(get("/product?category=8")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.content[0].id").value(3),
+                        jsonPath("$.result.content[1].id").value(8),
+                        jsonPath("$.result.page.totalElements").value(2)
+                );
+    }
+
+    @Test
+    public void findAllShouldReturnBadRequestWhenCategoryIsCombinedWithCursor() throws Exception {
+        mockMvc.perform(get("/product?category=1&after=")
+                        .accept("application/json"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void findAllByCategoriesShouldIgnoreSliceParameter() throws Exception {
+        mockMvc.perform(get("/product?category=8&slice=true")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.page.totalElements").value(2));
+    }
+
+    @Test
+    public void searchShouldReturnMatchingProductsByRelevance() throws Exception {
+        mockMvc.perform(get("/product/search").param("q", "best rock")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.content.length()").value(2),
+                        jsonPath("$.result.content[0].id").value(2),
+                        jsonPath("$.result.content[1].id").value(3),
+                        jsonPath("$.result.page.totalElements").value(2)
+                );
+
+        mockMvc.perform(get("/product/search").param("q", "rolling ROCK")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.content.length()").value(1),
+                        jsonPath("$.result.content[0].name").value("The Best of The Rolling Stones")
+                );
+    }
+
+    @Test
+    public void searchShouldReturnBadRequestWhenQueryIsBlank() throws Exception {
+        mockMvc.perform(get("/product/search").param("q", "")
+                        .accept("application/json"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void suggestShouldReturnMostRatedProductsStartingWithPrefix() throws Exception {
+        mockMvc.perform(get("/product/suggest").param("prefix", "The best of B").param("size", "3")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.length()").value(3),
+                        jsonPath("$.result[0].id").value(6),
+                        jsonPath("$.result[0].name").value("The Best of Beethoven"),
+                        jsonPath("$.result[0].totalRatings").value(4),
+                        jsonPath("$.result[1].id").value(4),
+                        jsonPath("$.result[2].id").value(8)
+                );
+
+        mockMvc.perform(get("/product/suggest").param("prefix", "roc")
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.length()").value(2),
+                        jsonPath("$.result[0].id").value(2),
+                        jsonPath("$.result[1].id").value(3)
+                );
+    }
+
     @Test
     @WithUserDetails("test@example.com")
     public void findByIdShouldReturnProductDTOWhenIdExists() throws Exception {
@@ -187,4 +304,197 @@ public class ProductControllerIntegrationTests {
 
         assertThat(repository.count()).isEqualTo(countTotalProducts);
     }
+
+    @Test
+    public void importCsvShouldSaveValidRowsAndReportInvalidOnes() throws Exception {
+        String body = """
+                name,price,imgUrl,categories
+                "Kind of Blue, Remastered",19.90,https://picsum.photos/400,Jazz;Blues
+                The Dark Side of the Moon,24.50,https://picsum.photos/400,Rock
+                Abbey Road,not a price,https://picsum.photos/400,Rock
+                Thriller Deluxe,15.00,https://picsum.photos/400,Disco
+                """;
+
+        mockMvc.perform(post("/product/bulk")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .accept("application/json")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.received").value(4),
+                        jsonPath("$.result.imported").value(2),
+                        jsonPath("$.result.failed").value(2),
+                        jsonPath("$.result.errors[0].line").value(4),
+                        jsonPath("$.result.errors[1].line").value(5),
+                        jsonPath("$.result.errors[1].message").value("Category Disco does not exist")
+                );
+
+        assertThat(repository.count()).isEqualTo(countTotalProducts + 2);
+    }
+
+    @Test
+    public void importNdjsonShouldSaveValidRowsAndReportInvalidOnes() throws Exception {
+        String body = """
+                {"name": "Kind of Blue", "price": 19.90, "imgUrl": "https://picsum.photos/400", "categories": ["jazz"]}
+                {"name": "Broken line", "price":
+
+                {"name": "Nope", "price": -1, "imgUrl": "https://picsum.photos/400"}
+                """;
+
+        mockMvc.perform(post("/product/bulk")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .accept("application/json")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.received").value(3),
+                        jsonPath("$.result.imported").value(1),
+                        jsonPath("$.result.failed").value(2),
+                        jsonPath("$.result.errors[0].line").value(2),
+                        jsonPath("$.result.errors[1].line").value(4)
+                );
+
+        assertThat(repository.count()).isEqualTo(countTotalProducts + 1);
+    }
+
+    @Test
+    public void importCsvShouldReportSavedRowsWhenBodyBecomesUnreadable() throws Exception {
+        String body = "name,price,imgUrl,categories\n" +
+                "Kind of Blue,19.90,https://picsum.photos/400,Jazz\n" +
+                "A".repeat(20 * 1024) + ",24.50,https://picsum.photos/400,Rock\n";
+
+        mockMvc.perform(post("/product/bulk")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .accept("application/json")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.received").value(1),
+                        jsonPath("$.result.imported").value(1),
+                        jsonPath("$.result.aborted").value(true),
+                        jsonPath("$.result.abortReason").value("Import is not valid, the record at line 3 is longer than 16384 characters")
+                );
+
+        assertThat(repository.count()).isEqualTo(countTotalProducts + 1);
+    }
+
+    @Test
+    public void createDiscountCampaignShouldDiscountExistingListedProducts() throws Exception {
+        mockMvc.perform(post("/product/discount")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .accept("application/json")
+                        .contentType("application/json")
+                        .content("{\"percentage\": 20, \"durationInMinutes\": 60, \"productIds\": [1, 2, 1000]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.affectedProducts").value(2));
+
+        mockMvc.perform(get("/product/{id}", existingId)
+                        .header("Authorization", "Bearer " + adminToken)
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpectAll(
+                        jsonPath("$.result.discount.percentage").value(20),
+                        jsonPath("$.result.effectivePrice").value(7.99)
+                );
+    }
+
+    @Test
+    public void createDiscountCampaignShouldReturnUnprocessableEntityWhenNoProductIsListed() throws Exception {
+        mockMvc.perform(post("/product/discount")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .accept("application/json")
+                        .contentType("application/json")
+                        .content("{\"percentage\": 20, \"durationInMinutes\": 60, \"productIds\": []}"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    @WithUserDetails("test@example.com")
+    public void importShouldReturnForbiddenWhenUserHasNotEnoughScope() throws Exception {
+        mockMvc.perform(post("/product/bulk")
+                        .accept("application/json")
+                        .contentType("text/csv")
+                        .content("name,price,imgUrl"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void exportShouldWriteOneProductPerLine() throws Exception {
+        String body = mockMvc.perform(get("/product/export")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .accept("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize((int) countTotalProducts);
+
+        ProductDTO first = objectMapper.readValue(lines.get(0), ProductDTO.class);
+        assertThat(first.getId()).isEqualTo(existingId);
+        assertThat(first.getCategories()).extracting(CategoryDTO::getId).containsExactly(1L);
+    }
+
+    @Test
+    @WithUserDetails("test@example.com")
+    public void findByIdShouldReturnNotModifiedWhenETagMatches() throws Exception {
+        String eTag = mockMvc.perform(get("/product/{id}", existingId)
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/product/{id}", existingId)
+                        .header("If-None-Match", eTag)
+                        .accept("application/json"))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithUserDetails("test@example.com")
+    public void findByIdShouldReturnNewETagAfterUpdate() throws Exception {
+        String eTag = mockMvc.perform(get("/product/{id}", existingId)
+                        .accept("application/json"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put("/product/{id}", existingId)
+                        .accept("application/json")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(productDTO)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/product/{id}", existingId)
+                        .header("If-None-Match", eTag)
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
+    @Test
+    public void findByIdShouldReturnNewETagAfterCategoryIsRenamed() throws Exception {
+        String eTag = mockMvc.perform(get("/product/{id}", existingId)
+                        .header("Authorization", "Bearer " + adminToken)
+                        .accept("application/json"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put("/category/{id}", 1L)
+                        .header("Authorization", "Bearer " + adminToken)
+                        .accept("application/json")
+                        .contentType("application/json")
+                        .content("{\"name\": \"Modal Jazz\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/product/{id}", existingId)
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header("If-None-Match", eTag)
+                        .accept("application/json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)))
+                .andExpect(jsonPath("$.result.categories[0].name").value("Modal Jazz"));
+    }
 }
@@ -4,7 +4,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.dougmab.openvinylboxapi.config.SecurityConfig;
 import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
 import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
+import com.github.dougmab.openvinylboxapi.payload.ResourceVersion;
+import com.github.dougmab.openvinylboxapi.service.ProductExportService;
+import com.github.dougmab.openvinylboxapi.service.ProductImportService;
 import com.github.dougmab.openvinylboxapi.service.ProductService;
+import com.github.dougmab.openvinylboxapi.service.RatingService;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +23,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -41,6 +46,15 @@ public class ProductControllerTests {
     @MockBean
     private ProductService service;
 
+    @MockBean
+    private RatingService ratingService;
+
+    @MockBean
+    private ProductImportService importService;
+
+    @MockBean
+    private ProductExportService exportService;
+
     private ProductDTO productDTO;
     private Page<ProductDTO> page;
 
@@ -61,6 +75,8 @@ public class ProductControllerTests {
 
         when(service.findById(existingId)).thenReturn(productDTO);
         when(service.findById(nonExistingId)).thenThrow(EntityNotFoundException.class);
+        when(service.findVersionById(existingId)).thenReturn(ResourceVersion.of(Instant.now(), existingId));
+        when(service.findVersionById(nonExistingId)).thenThrow(EntityNotFoundException.class);
 
         when(service.insert(any(ProductDTO.class))).thenReturn(productDTO);
 
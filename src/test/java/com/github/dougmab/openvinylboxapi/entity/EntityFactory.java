@@ -25,6 +25,7 @@ public class EntityFactory {
     public static Product createProduct(Long id) {
         Product product = new Product(id, "Thriller", 9.99, "https://picsum.photos/200");
         product.getCategories().add(createCategory(1L));
+        product.setRatingStatistics(new RatingStatistics(product));
         return product;
     }
 
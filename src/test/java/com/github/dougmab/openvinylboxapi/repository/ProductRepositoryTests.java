@@ -1,7 +1,9 @@
 package com.github.dougmab.openvinylboxapi.repository;
 
+import com.github.dougmab.openvinylboxapi.entity.Category;
 import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
 import com.github.dougmab.openvinylboxapi.entity.Product;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,13 +15,17 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class ProductRepositoryTests {
 
     private final ProductRepository repository;
+    private final CategoryRepository categoryRepository;
+    private final EntityManagerFactory entityManagerFactory;
 
     private Long existingId;
     private Long nonExistingId;
 
     @Autowired
-    public ProductRepositoryTests(ProductRepository repository) {
+    public ProductRepositoryTests(ProductRepository repository, CategoryRepository categoryRepository, EntityManagerFactory entityManagerFactory) {
         this.repository = repository;
+        this.categoryRepository = categoryRepository;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
     @BeforeEach
@@ -42,6 +48,16 @@ public class ProductRepositoryTests {
         assertThat(product).isNull();
     }
 
+    @Test
+    public void refreshAverageRatingShouldKeepOtherEntitiesInSecondLevelCache() {
+        categoryRepository.findById(1L);
+        assertThat(entityManagerFactory.getCache().contains(Category.class, 1L)).isTrue();
+
+        repository.refreshAverageRating(existingId);
+
+        assertThat(entityManagerFactory.getCache().contains(Category.class, 1L)).isTrue();
+    }
+
     @Test
     public void saveShouldPersistWithAutoincrementWhenIdIsNull() {
         Product product = EntityFactory.createProduct(null);
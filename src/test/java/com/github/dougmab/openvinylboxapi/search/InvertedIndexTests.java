@@ -0,0 +1,92 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvertedIndexTests {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.put(1L, "The Best of Miles Davis", List.of("Jazz"));
+        index.put(2L, "Kind of Blue", List.of("Jazz", "Blues"));
+        index.put(3L, "Blues Brothers", List.of("Soundtrack"));
+        index.put(4L, "Beyonc\u00e9 Live", List.of("Pop"));
+    }
+
+    @Test
+    public void searchShouldRequireEveryTerm() {
+        var hits = index.search("miles jazz", 0, 10);
+
+        assertThat(hits.getIds()).containsExactly(1L);
+        assertThat(hits.getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    public void searchShouldRankNameMatchesAboveCategoryAndExactAbovePrefix() {
+        var hits = index.search("blues", 0, 10);
+
+        // A name match outweighs a category match
+        assertThat(hits.getIds()).containsExactly(3L, 2L);
+
+        hits = index.search("blue", 0, 10);
+
+        // Exact name "Blue" beats the prefix of name "Blues"
+        assertThat(hits.getIds()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    public void searchShouldIgnoreCaseAndDiacritics() {
+        assertThat(index.search("BEYONCE", 0, 10).getIds()).containsExactly(4L);
+        assertThat(index.search("beyo", 0, 10).getIds()).containsExactly(4L);
+    }
+
+    @Test
+    public void searchShouldPageHitsAndCountAllOfThem() {
+        var hits = index.search("jazz", 1, 1);
+
+        assertThat(hits.getIds()).containsExactly(2L);
+        assertThat(hits.getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    public void searchShouldKeepMostCommonExpansionsWhenPrefixHasTooMany() {
+        // 70 terms found in one document each, sorting before a term found in three
+        for (int i = 0; i < 70; i++)
+            index.put(10L + i, "qx" + (char) ('a' + i / 26) + (char) ('a' + i % 26), List.of());
+        for (long id = 100; id < 103; id++)
+            index.put(id, "qzz", List.of());
+
+        var hits = index.search("q", 0, 100);
+
+        assertThat(hits.getIds()).contains(100L, 101L, 102L);
+        assertThat(hits.getTotal()).isEqualTo(3 + 62);
+    }
+
+    @Test
+    public void putShouldReplacePreviousTermsAndRemoveShouldDropDocument() {
+        index.put(1L, "Kind of Magic", List.of());
+
+        assertThat(index.search("miles", 0, 10).getIds()).isEmpty();
+        assertThat(index.search("kind", 0, 10).getIds()).containsExactlyInAnyOrder(1L, 2L);
+
+        index.remove(2L);
+
+        assertThat(index.search("kind", 0, 10).getIds()).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void searchShouldReturnNothingForQueryWithoutTerms() {
+        var hits = index.search(" ?! ", 0, 10);
+
+        assertThat(hits.getIds()).isEmpty();
+        assertThat(hits.getTotal()).isZero();
+    }
+}
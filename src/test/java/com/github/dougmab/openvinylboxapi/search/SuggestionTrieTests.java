@@ -0,0 +1,84 @@
+package com.github.dougmab.openvinylboxapi.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SuggestionTrieTests {
+
+    private int[] scores;
+    private SuggestionTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        scores = new int[10];
+        trie = new SuggestionTrie(2, (first, second) -> {
+            int byScore = Integer.compare(scores[second], scores[first]);
+            return byScore != 0 ? byScore : Integer.compare(first, second);
+        });
+
+        scores[1] = 5;
+        scores[2] = 3;
+        scores[3] = 8;
+        trie.add("miles davis", 1);
+        trie.add("mingus", 2);
+        trie.add("milestones", 3);
+    }
+
+    @Test
+    public void topShouldReturnBestRankedIdsUnderPrefix() {
+        assertThat(trie.top("mi")).containsExactly(3, 1);
+        assertThat(trie.top("ming")).containsExactly(2);
+        assertThat(trie.top("miles")).containsExactly(3, 1);
+        assertThat(trie.top("miles d")).containsExactly(1);
+    }
+
+    @Test
+    public void topShouldReturnNothingWhenNoKeyStartsWithPrefix() {
+        assertThat(trie.top("mo")).isEmpty();
+        assertThat(trie.top("miles davis quintet")).isEmpty();
+    }
+
+    @Test
+    public void removeShouldLetNextBestIdIntoTop() {
+        trie.remove("milestones", 3);
+
+        assertThat(trie.top("mi")).containsExactly(1, 2);
+        assertThat(trie.top("milest")).isEmpty();
+    }
+
+    @Test
+    public void rerankShouldMoveIdUpAndDown() {
+        scores[2] = 10;
+        trie.rerank(List.of("mingus"), 2, true);
+
+        assertThat(trie.top("mi")).containsExactly(2, 3);
+
+        scores[2] = 0;
+        trie.rerank(List.of("mingus"), 2, false);
+
+        assertThat(trie.top("mi")).containsExactly(3, 1);
+    }
+
+    @Test
+    public void removeShouldKeepOtherIdsOfSharedKey() {
+        scores = new int[10_000];
+        for (int id = 0; id < scores.length; id++) {
+            scores[id] = id;
+            trie.add("jazz", id);
+        }
+
+        for (int id = scores.length - 1; id >= 100; id--) trie.remove("jazz", id);
+        trie.add("jazz", 50);
+
+        assertThat(trie.top("ja")).containsExactly(99, 98);
+
+        trie.remove("jazz", 99);
+        trie.remove("jazz", 99);
+
+        assertThat(trie.top("jazz")).containsExactly(98, 97);
+    }
+}
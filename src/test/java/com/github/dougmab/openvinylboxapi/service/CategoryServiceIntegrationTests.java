@@ -3,7 +3,11 @@ package com.github.dougmab.openvinylboxapi.service;
 import com.github.dougmab.openvinylboxapi.dto.CategoryDTO;
 import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
 import com.github.dougmab.openvinylboxapi.repository.CategoryRepository;
+import com.github.dougmab.openvinylboxapi.repository.RoleRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,6 +33,12 @@ public class CategoryServiceIntegrationTests {
     @Autowired
     private CategoryRepository repository;
 
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private Long existingId;
     private Long nonExistingId;
     private Long countTotalCategories;
@@ -113,4 +123,30 @@ public class CategoryServiceIntegrationTests {
             service.delete(existingId);
         });
     }
+
+    @Test
+    public void findByIdShouldReadFromSecondLevelCacheOnceLoaded() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        service.findById(existingId);
+        entityManager.clear();
+        statistics.clear();
+
+        service.findById(existingId);
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void findByAuthorityShouldReadFromQueryCacheOnceExecuted() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        roleRepository.findByAuthority("USER");
+        entityManager.clear();
+        statistics.clear();
+
+        roleRepository.findByAuthority("USER");
+
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
 }
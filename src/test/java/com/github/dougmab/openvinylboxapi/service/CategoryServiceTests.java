@@ -3,6 +3,7 @@ package com.github.dougmab.openvinylboxapi.service;
 import com.github.dougmab.openvinylboxapi.dto.CategoryDTO;
 import com.github.dougmab.openvinylboxapi.entity.Category;
 import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
+import com.github.dougmab.openvinylboxapi.repository.CategoryRatingStatisticsRepository;
 import com.github.dougmab.openvinylboxapi.repository.CategoryRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -32,6 +34,15 @@ public class CategoryServiceTests {
     @Mock
     private CategoryRepository repository;
 
+    @Mock
+    private CategoryRatingStatisticsRepository statisticsRepository;
+
+    @Mock
+    private TotalCountService totalCountService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private Long existingId;
     private Long nonExistingId;
     private Long dependentId;
@@ -47,7 +58,8 @@ public class CategoryServiceTests {
                 EntityFactory.createCategory(2L),
                 EntityFactory.createCategory(3L)));
 
-        when(repository.findAll(any(Pageable.class))).thenReturn(page);
+        when(repository.findSliceBy(any(Pageable.class))).thenReturn(page);
+        when(totalCountService.countOf(Category.class)).thenReturn(3L);
         when(repository.findById(existingId)).thenReturn(Optional.of(EntityFactory.createCategory(existingId)));
         when(repository.findById(nonExistingId)).thenReturn(Optional.empty());
         when(repository.getReferenceById(existingId)).thenReturn(EntityFactory.createCategory(existingId));
@@ -0,0 +1,112 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.dto.CategoryRatingStatisticsDTO;
+import com.github.dougmab.openvinylboxapi.dto.RatingDTO;
+import com.github.dougmab.openvinylboxapi.entity.Product;
+import com.github.dougmab.openvinylboxapi.entity.Rating;
+import com.github.dougmab.openvinylboxapi.entity.User;
+import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import com.github.dougmab.openvinylboxapi.repository.RatingRepository;
+import com.github.dougmab.openvinylboxapi.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+// Deltas are only queued once ratings commit, so the database is discarded afterwards
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CategoryStatisticsServiceIntegrationTests {
+
+    @Autowired
+    private CategoryStatisticsService service;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @BeforeAll
+    void setUp() {
+        // Ratings behind the seeded statistics of products 2, 3 and 4, which a rebuild recomputes from
+        rate(2L, 5, 5, 4, 4);
+        rate(3L, 5, 4, 4, 3);
+        rate(4L, 4, 4);
+    }
+
+    @Test
+    public void addRatingShouldUpdateStatisticsOfEveryCategoryOfProductAndStoreOnFlush() {
+        CategoryRatingStatisticsDTO store = service.findStoreWide();
+        CategoryRatingStatisticsDTO second = service.findByCategoryId(2L);
+        CategoryRatingStatisticsDTO third = service.findByCategoryId(3L);
+
+        // Product 2 belongs to categories 2 and 3
+        ratingService.addRating(2L, 1L, new RatingDTO((short) 5, null));
+        service.flush();
+
+        assertThat(service.findByCategoryId(2L).getTotalRatings()).isEqualTo(second.getTotalRatings() + 1);
+        assertThat(service.findByCategoryId(2L).getFiveStars()).isEqualTo(second.getFiveStars() + 1);
+        assertThat(service.findByCategoryId(3L).getTotalRatings()).isEqualTo(third.getTotalRatings() + 1);
+        assertThat(service.findByCategoryId(3L).getTotalStars()).isEqualTo(third.getTotalStars() + 5);
+        assertThat(service.findStoreWide().getTotalRatings()).isEqualTo(store.getTotalRatings() + 1);
+        assertThat(service.findStoreWide().getTotalStars()).isEqualTo(store.getTotalStars() + 5);
+        assertThat(service.findByCategoryId(9L).getTotalRatings()).isEqualTo(2L);
+    }
+
+    @Test
+    public void rebuildShouldRecomputeStatisticsFromRatingsWithoutCountingQueuedDeltasTwice() {
+        CategoryRatingStatisticsDTO third = service.findByCategoryId(3L);
+
+        ratingService.addRating(2L, 2L, new RatingDTO((short) 4, null));
+        service.rebuild();
+        service.flush();
+
+        CategoryRatingStatisticsDTO rebuilt = service.findByCategoryId(3L);
+        assertThat(rebuilt.getTotalRatings()).isEqualTo(third.getTotalRatings() + 1);
+        assertThat(rebuilt.getTotalStars()).isEqualTo(third.getTotalStars() + 4);
+        assertThat(rebuilt.getFourStars()).isEqualTo(third.getFourStars() + 1);
+        assertThat(service.findByCategoryId(9L).getTotalRatings()).isEqualTo(2L);
+    }
+
+    @Test
+    public void rebuildShouldKeepStatisticsThatMatchRatings() {
+        service.flush();
+        CategoryRatingStatisticsDTO third = service.findByCategoryId(3L);
+
+        service.rebuild();
+
+        assertThat(service.findByCategoryId(3L).getTotalRatings()).isEqualTo(third.getTotalRatings());
+        assertThat(service.findByCategoryId(3L).getTotalStars()).isEqualTo(third.getTotalStars());
+        assertThat(service.findByCategoryId(9L).getTotalRatings()).isEqualTo(2L);
+    }
+
+    @Test
+    public void findByCategoryIdShouldThrowEntityNotFoundExceptionWhenIdDoesNotExist() {
+        assertThatExceptionOfType(EntityNotFoundException.class)
+                .isThrownBy(() -> service.findByCategoryId(1000L));
+    }
+
+    private void rate(Long productId, int... values) {
+        Product product = productRepository.findById(productId).orElseThrow();
+        for (int i = 0; i < values.length; i++) {
+            User user = userRepository.save(new User(null, "Rating", "Tester", "rater" + productId + "-" + i + "@example.com", "unused"));
+            ratingRepository.save(new Rating(product, user, (short) values[i], null));
+        }
+    }
+}
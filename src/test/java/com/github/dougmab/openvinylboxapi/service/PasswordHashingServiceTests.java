@@ -0,0 +1,64 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.exception.PasswordHashingSaturatedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PasswordHashingServiceTests {
+
+    private BCryptPasswordEncoder passwordEncoder;
+    private SimpleMeterRegistry meterRegistry;
+    private CountDownLatch release;
+
+    private PasswordHashingService service;
+
+    @BeforeEach
+    void setUp() {
+        release = new CountDownLatch(1);
+        passwordEncoder = mock(BCryptPasswordEncoder.class);
+        when(passwordEncoder.matches(any(), anyString())).thenAnswer(invocation -> release.await(5, TimeUnit.SECONDS));
+
+        meterRegistry = new SimpleMeterRegistry();
+        // One thread and one queued password
+        service = new PasswordHashingService(passwordEncoder, meterRegistry, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    public void matchesAsyncShouldRejectPasswordsOnceTheQueueIsFull() {
+        CompletableFuture<Boolean> running = service.matchesAsync("a", "hash");
+        CompletableFuture<Boolean> queued = service.matchesAsync("b", "hash");
+        assertThat(meterRegistry.get("password.hashing.queue.size").gauge().value()).isEqualTo(1);
+
+        CompletableFuture<Boolean> rejected = service.matchesAsync("c", "hash");
+
+        assertThatThrownBy(() -> PasswordHashingService.await(rejected)).isInstanceOf(PasswordHashingSaturatedException.class);
+        assertThat(meterRegistry.counter("password.hashing.rejected").count()).isEqualTo(1);
+
+        release.countDown();
+
+        assertThat(running.join()).isTrue();
+        assertThat(queued.join()).isTrue();
+        assertThat(meterRegistry.timer("password.hashing.queue.wait").count()).isEqualTo(2);
+        assertThat(meterRegistry.timer("password.hashing.time", "operation", "matches").count()).isEqualTo(2);
+    }
+}
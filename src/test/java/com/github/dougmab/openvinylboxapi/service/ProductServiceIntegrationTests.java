@@ -1,18 +1,32 @@
 package com.github.dougmab.openvinylboxapi.service;
 
+import com.github.dougmab.openvinylboxapi.config.CacheConfig;
+import com.github.dougmab.openvinylboxapi.dto.DiscountDTO;
 import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
 import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
+import com.github.dougmab.openvinylboxapi.exception.BadRequestException;
 import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
@@ -27,6 +41,15 @@ public class ProductServiceIntegrationTests {
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private DiscountExpiryService discountExpiryService;
+
     private Long existingId;
     private Long nonExistingId;
     private Long countTotalProducts;
@@ -42,6 +65,13 @@ public class ProductServiceIntegrationTests {
         productDTO.getCategories().add(EntityFactory.createCategoryDTO(1L));
     }
 
+    @AfterEach
+    void tearDown() {
+        // Rolled back changes must not outlive the test in the product details cache
+        cacheManager.getCache(CacheConfig.PRODUCT_DETAILS).clear();
+        cacheManager.getCache(CacheConfig.PRODUCT_VERSIONS).clear();
+    }
+
     @Test
     public void findAllPagedShouldReturnPageOfPage0Size10() {
         Pageable pageable = PageRequest.of(0, 10);
@@ -52,6 +82,79 @@ public class ProductServiceIntegrationTests {
         assertThat(page.getTotalElements()).isEqualTo(countTotalProducts);
     }
 
+    @Test
+    public void findAllPagedShouldIssueSameNumberOfStatementsRegardlessOfPageSize() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        // The total is cached after the first request
+        service.findAllPaged(PageRequest.of(0, 1));
+
+        entityManager.clear();
+        statistics.clear();
+        service.findAllPaged(PageRequest.of(0, 5));
+        long statementsForSmallPage = statistics.getPrepareStatementCount();
+
+        entityManager.clear();
+        statistics.clear();
+        service.findAllPaged(PageRequest.of(0, 10));
+        long statementsForLargePage = statistics.getPrepareStatementCount();
+
+        // content slice and categories of the page
+        assertThat(statementsForSmallPage).isEqualTo(2);
+        assertThat(statementsForLargePage).isEqualTo(statementsForSmallPage);
+    }
+
+    @Test
+    public void findAllPagedShouldNotLoadEntitiesIntoPersistenceContext() {
+        entityManager.clear();
+
+        var page = service.findAllPaged(PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).allMatch(dto -> dto.getAverageRating() != null);
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    public void findAllPagedShouldSortByAverageRating() {
+        Pageable pageable = PageRequest.of(0, 2, Sort.by(Direction.DESC, "averageRating").and(Sort.by("id")));
+
+        var page = service.findAllPaged(pageable);
+
+        assertThat(page.getContent()).extracting(ProductDTO::getId).containsExactly(8L, 2L);
+        assertThat(page.getContent()).extracting(ProductDTO::getAverageRating).containsExactly(5.0, 4.5);
+    }
+
+    @Test
+    public void findAllPagedShouldSortByDiscountedPrice() {
+        service.createDiscountForProductId(3L, new DiscountDTO(null, (short) 50, 60, null, null));
+        Pageable pageable = PageRequest.of(0, 1, Sort.by("effectivePrice").and(Sort.by("id")));
+
+        var page = service.findAllPaged(pageable);
+
+        assertThat(page.getContent().get(0).getId()).isEqualTo(3L);
+        assertThat(page.getContent().get(0).getEffectivePrice()).isEqualTo(5.0);
+    }
+
+    @Test
+    public void findAllAfterShouldWalkWholeCatalogWithoutRepeatingProducts() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = "";
+
+        do {
+            var slice = service.findAllAfter(cursor, 4);
+            slice.getContent().forEach(dto -> ids.add(dto.getId()));
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(ids).hasSize(countTotalProducts.intValue());
+        assertThat(ids).doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void findAllAfterShouldThrowBadRequestExceptionWhenCursorIsInvalid() {
+        assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> service.findAllAfter("not-a-cursor", 4));
+    }
+
     @Test
     public void findByIdShouldReturnProductDTOWhenIdExists() {
         var productDTO = service.findById(existingId);
@@ -108,4 +211,56 @@ public class ProductServiceIntegrationTests {
 
         assertThat(repository.count()).isEqualTo(countTotalProducts);
     }
+
+    @Test
+    public void findByIdShouldServeRepeatedReadsFromCache() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        ProductDTO first = service.findById(existingId);
+        statistics.clear();
+
+        ProductDTO second = service.findById(existingId);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void findByIdShouldNotLetCallersChangeCachedProduct() {
+        ProductDTO first = service.findById(existingId);
+        String name = first.getName();
+        first.setName("Changed by the caller");
+        first.getCategories().clear();
+
+        ProductDTO second = service.findById(existingId);
+
+        assertThat(second.getName()).isEqualTo(name);
+        assertThat(second.getCategories()).isNotEmpty();
+        assertThat(second).isNotSameAs(service.findById(existingId));
+    }
+
+    @Test
+    public void updateShouldEvictCachedProductDetails() {
+        service.findById(existingId);
+        productDTO.setName("Kind of Blue (Legacy Edition)");
+
+        service.update(existingId, productDTO);
+        entityManager.flush();
+
+        assertThat(service.findById(existingId).getName()).isEqualTo("Kind of Blue (Legacy Edition)");
+    }
+
+    @Test
+    public void expiredDiscountShouldBeRemovedAndFullPriceRestored() {
+        service.createDiscountForProductId(3L, new DiscountDTO(null, (short) 50, 60, null, null));
+        service.findById(3L);
+        entityManager.flush();
+        Long discountId = repository.findById(3L).get().getDiscount().getId();
+        entityManager.clear();
+
+        int products = discountExpiryService.expire(List.of(discountId));
+
+        assertThat(products).isEqualTo(1);
+        assertThat(repository.findById(3L).get().getDiscount()).isNull();
+        assertThat(service.findById(3L).getEffectivePrice()).isEqualTo(9.99);
+    }
 }
@@ -1,25 +1,34 @@
 package com.github.dougmab.openvinylboxapi.service;
 
+import com.github.dougmab.openvinylboxapi.dto.ProductCategoryDTO;
 import com.github.dougmab.openvinylboxapi.dto.ProductDTO;
 import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
 import com.github.dougmab.openvinylboxapi.entity.Product;
+import com.github.dougmab.openvinylboxapi.event.ProductChangedEvent;
+import com.github.dougmab.openvinylboxapi.exception.BadRequestException;
 import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import com.github.dougmab.openvinylboxapi.search.ProductSearchIndex;
+import com.github.dougmab.openvinylboxapi.search.SearchHits;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -31,6 +40,18 @@ public class ProductServiceTests {
     @Mock
     ProductRepository repository;
 
+    @Mock
+    TotalCountService totalCountService;
+
+    @Mock
+    CategoryMembershipIndex membershipIndex;
+
+    @Mock
+    ProductSearchIndex searchIndex;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     private Long existingId;
     private Long nonExistingId;
     private Long dependentId;
@@ -45,7 +66,9 @@ public class ProductServiceTests {
                 EntityFactory.createProduct(2L),
                 EntityFactory.createProduct(3L)));
 
-        when(repository.findAll(any(Pageable.class))).thenReturn(page);
+        when(repository.findCatalogSlice(any(Pageable.class))).thenReturn(page.map(ProductDTO::new));
+        when(totalCountService.countOf(Product.class)).thenReturn(3L);
+        when(repository.findCategoriesByProductIdIn(anyCollection())).thenReturn(List.of(new ProductCategoryDTO(1L, 1L, "Pop")));
         when(repository.findById(existingId)).thenReturn(Optional.of(EntityFactory.createProduct(existingId)));
         when(repository.findById(nonExistingId)).thenReturn(Optional.empty());
         when(repository.getReferenceById(existingId)).thenReturn(EntityFactory.createProduct(existingId));
@@ -58,6 +81,16 @@ public class ProductServiceTests {
         when(repository.save(any(Product.class))).thenReturn(EntityFactory.createProduct(existingId));
         when(repository.save((nonExistingProductRef))).thenThrow(EntityNotFoundException.class);
 
+        BitSet intersection = new BitSet();
+        intersection.set(2);
+        intersection.set(3);
+        when(membershipIndex.productsInAll(List.of(1L, 3L))).thenReturn(intersection);
+        when(repository.findCatalogByIdIn(List.of(3L))).thenReturn(List.of(new ProductDTO(EntityFactory.createProduct(3L))));
+
+        when(searchIndex.search("best", 0, 10)).thenReturn(new SearchHits(List.of(3L, 1L), 2));
+        when(repository.findCatalogByIdIn(List.of(3L, 1L))).thenReturn(List.of(
+                new ProductDTO(EntityFactory.createProduct(1L)), new ProductDTO(EntityFactory.createProduct(3L))));
+
         doNothing().when(repository).deleteById(existingId);
         doThrow(DataIntegrityViolationException.class).when(repository).deleteById(dependentId);
     }
@@ -71,6 +104,44 @@ public class ProductServiceTests {
         assertThat(result.getTotalElements()).isEqualTo(3);
     }
 
+    @Test
+    public void findAllByCategoryIdsShouldReturnPageOfIntersection() {
+        var result = service.findAllByCategoryIds(List.of(1L, 3L), PageRequest.of(1, 1));
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting(ProductDTO::getId).containsExactly(3L);
+
+        verify(repository, times(1)).findCatalogByIdIn(List.of(3L));
+    }
+
+    @Test
+    public void findAllByCategoryIdsShouldNotQueryWhenIntersectionIsEmpty() {
+        when(membershipIndex.productsInAll(List.of(1L, 2L))).thenReturn(new BitSet());
+
+        var result = service.findAllByCategoryIds(List.of(1L, 2L), PageRequest.of(0, 10));
+
+        assertThat(result).isEmpty();
+        assertThat(result.getTotalElements()).isZero();
+
+        verify(repository, never()).findCatalogByIdIn(anyCollection());
+    }
+
+    @Test
+    public void searchShouldReturnProductsInRankOrder() {
+        var result = service.search("best", PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting(ProductDTO::getId).containsExactly(3L, 1L);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void searchShouldThrowExceptionWhenQueryIsBlank() {
+        assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> service.search(" ", PageRequest.of(0, 10)));
+
+        verifyNoInteractions(searchIndex);
+    }
+
     @Test
     public void findByIdShouldReturnProductDTOWhenIdExists() {
         var dto = service.findById(existingId);
@@ -95,6 +166,7 @@ public class ProductServiceTests {
         assertThat(dto).isNotNull();
 
         verify(repository, times(1)).save(any());
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangedEvent.class));
     }
 
     @Test
@@ -120,6 +192,7 @@ public class ProductServiceTests {
         assertThatCode(() -> service.delete(existingId)).doesNotThrowAnyException();
 
         verify(repository, times(1)).deleteById(existingId);
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangedEvent.class));
     }
 
     @Test
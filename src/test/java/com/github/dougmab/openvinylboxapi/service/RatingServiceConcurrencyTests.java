@@ -0,0 +1,123 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.dto.RatingDTO;
+import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
+import com.github.dougmab.openvinylboxapi.entity.RatingStatistics;
+import com.github.dougmab.openvinylboxapi.entity.User;
+import com.github.dougmab.openvinylboxapi.repository.RatingStatisticsRepository;
+import com.github.dougmab.openvinylboxapi.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Ratings are committed for real, so the database is discarded afterwards
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class RatingServiceConcurrencyTests {
+
+    private static final int RATINGS = 2000;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private RatingService service;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RatingStatisticsRepository statisticsRepository;
+
+    @Test
+    public void addRatingShouldKeepExactTotalsWhenProductIsRatedConcurrently() throws Exception {
+        Long productId = productService.insert(EntityFactory.createProductDTO(null)).getId();
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < RATINGS; i++) {
+            users.add(new User(null, "Load", "Tester", "load" + i + "@example.com", "unused"));
+        }
+        List<Long> userIds = userRepository.saveAll(users).stream().map(User::getId).toList();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < RATINGS; i++) {
+            Long userId = userIds.get(i);
+            short stars = (short) (i % 5 + 1);
+
+            results.add(executor.submit(() -> {
+                start.await();
+                service.addRating(productId, userId, new RatingDTO(stars, null));
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        RatingStatistics statistics = statisticsRepository.findByProductId(productId).orElseThrow();
+
+        assertThat(statistics.getTotalRatings()).isEqualTo(RATINGS);
+        assertThat(statistics.getTotalStars()).isEqualTo(RATINGS / 5 * (1 + 2 + 3 + 4 + 5));
+        assertThat(statistics.getFiveStars()).isEqualTo(RATINGS / 5);
+        assertThat(statistics.getFourStars()).isEqualTo(RATINGS / 5);
+        assertThat(statistics.getThreeStars()).isEqualTo(RATINGS / 5);
+        assertThat(statistics.getTwoStars()).isEqualTo(RATINGS / 5);
+        assertThat(statistics.getOneStar()).isEqualTo(RATINGS / 5);
+    }
+
+    @Test
+    public void addRatingShouldCreateStatisticsOnceWhenProductWithoutThemIsRatedConcurrently() throws Exception {
+        Long productId = productService.insert(EntityFactory.createProductDTO(null)).getId();
+        // As products created before statistics were introduced
+        statisticsRepository.delete(statisticsRepository.findByProductId(productId).orElseThrow());
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            users.add(new User(null, "Load", "Tester", "first" + i + "@example.com", "unused"));
+        }
+        List<Long> userIds = userRepository.saveAll(users).stream().map(User::getId).toList();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (Long userId : userIds) {
+            results.add(executor.submit(() -> {
+                start.await();
+                service.addRating(productId, userId, new RatingDTO((short) 4, null));
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        RatingStatistics statistics = statisticsRepository.findByProductId(productId).orElseThrow();
+
+        assertThat(statistics.getTotalRatings()).isEqualTo(THREADS);
+        assertThat(statistics.getFourStars()).isEqualTo(THREADS);
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.entity.JobCheckpoint;
+import com.github.dougmab.openvinylboxapi.repository.JobCheckpointRepository;
+import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import com.github.dougmab.openvinylboxapi.repository.RatingStatisticsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class RatingStatisticsBufferTests {
+
+    private RatingStatisticsBuffer buffer;
+
+    @Mock
+    private RatingStatisticsRepository statisticsRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private RatingStatisticsInitializer statisticsInitializer;
+
+    @Mock
+    private CategoryStatisticsService categoryStatisticsService;
+
+    @Mock
+    private JobCheckpointRepository checkpointRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> batchCaptor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        buffer = new RatingStatisticsBuffer(statisticsRepository, productRepository, statisticsInitializer, categoryStatisticsService, checkpointRepository, jdbcTemplate, transactionManager, cacheManager);
+    }
+
+    @Test
+    public void flushShouldWriteOneAggregatedUpdatePerProduct() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] { 1, 1 });
+
+        buffer.record(1L, RatingDelta.added((short) 5));
+        buffer.record(1L, RatingDelta.added((short) 3));
+        buffer.record(1L, RatingDelta.changed((short) 3, (short) 4));
+        buffer.record(2L, RatingDelta.added((short) 1));
+
+        buffer.flush();
+
+        Map<Long, Object[]> args = captureBatch();
+        assertThat(args).hasSize(2);
+        assertThat(args.get(1L)).startsWith(2, 9, 1, 1, 0, 0, 0).endsWith(1L);
+        assertThat(args.get(2L)).startsWith(1, 1, 0, 0, 0, 0, 1).endsWith(2L);
+
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE product"), anyList());
+        verify(categoryStatisticsService).record(eq(1L), argThat((delta) -> delta.getRatings() == 2 && delta.getStars() == 9));
+        verify(categoryStatisticsService).record(eq(2L), argThat((delta) -> delta.getRatings() == 1 && delta.getOneStar() == 1));
+    }
+
+    @Test
+    public void flushShouldDoNothingWhenNoDeltaIsPending() {
+        buffer.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void flushShouldRetryDeltasWhenWriteFails() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[] { 1 });
+
+        buffer.record(1L, RatingDelta.added((short) 5));
+        buffer.flush();
+        buffer.record(1L, RatingDelta.added((short) 4));
+        buffer.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("UPDATE rating_statistics"), batchCaptor.capture());
+        assertThat(batchCaptor.getValue().get(0)).startsWith(2, 9, 1, 1, 0, 0, 0).endsWith(1L);
+    }
+
+    @Test
+    public void flushShouldCreateStatisticsWhenProductHasNone() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] { 0 });
+        when(productRepository.existsById(1L)).thenReturn(true);
+
+        buffer.record(1L, RatingDelta.added((short) 5));
+        buffer.flush();
+
+        verify(statisticsInitializer).createIfMissing(1L);
+        verify(statisticsRepository).applyDelta(eq(1L), eq(1), eq(5), eq(1), eq(0), eq(0), eq(0), eq(0), any(Instant.class));
+    }
+
+    @Test
+    public void startShouldNotRecoverAfterCleanShutdown() {
+        when(checkpointRepository.findById(RatingStatisticsBuffer.CHECKPOINT)).thenReturn(Optional.of(checkpoint(0L)));
+
+        buffer.start();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void startShouldCorrectProductsRatedSinceLastFlushAfterUncleanShutdown() throws Exception {
+        when(checkpointRepository.findById(RatingStatisticsBuffer.CHECKPOINT)).thenReturn(Optional.of(checkpoint(1L)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] { 1 });
+
+        // Product 1 has one five stars rating counted, but two five stars and one four stars ratings
+        ResultSet statistics = mock(ResultSet.class);
+        when(statistics.getLong(1)).thenReturn(1L);
+        when(statistics.getInt(anyInt())).thenReturn(1, 5, 1, 0, 0, 0, 0);
+        ResultSet ratings = mock(ResultSet.class);
+        when(ratings.getLong(1)).thenReturn(1L);
+        when(ratings.getInt(2)).thenReturn(5, 4);
+        when(ratings.getInt(3)).thenReturn(2, 1);
+
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(statistics);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT product_id, total_ratings"), any(RowCallbackHandler.class), any());
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(ratings);
+            handler.processRow(ratings);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT product_id, rating_value"), any(RowCallbackHandler.class), any());
+
+        buffer.start();
+
+        assertThat(captureBatch().get(1L)).startsWith(2, 9, 1, 1, 0, 0, 0).endsWith(1L);
+    }
+
+    @Test
+    public void shutdownShouldClearCheckpointWhenEverythingWasFlushed() {
+        JobCheckpoint checkpoint = checkpoint(1L);
+        when(checkpointRepository.findById(RatingStatisticsBuffer.CHECKPOINT)).thenReturn(Optional.of(checkpoint));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] { 1 });
+
+        buffer.record(1L, RatingDelta.added((short) 5));
+        buffer.shutdown();
+
+        assertThat(checkpoint.getPosition()).isZero();
+    }
+
+    @Test
+    public void shutdownShouldKeepCheckpointWhenFlushFails() {
+        JobCheckpoint checkpoint = checkpoint(1L);
+        when(checkpointRepository.findById(RatingStatisticsBuffer.CHECKPOINT)).thenReturn(Optional.of(checkpoint));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("timeout"));
+
+        buffer.record(1L, RatingDelta.added((short) 5));
+        buffer.shutdown();
+
+        assertThat(checkpoint.getPosition()).isEqualTo(1L);
+    }
+
+    private static JobCheckpoint checkpoint(long position) {
+        JobCheckpoint checkpoint = new JobCheckpoint(RatingStatisticsBuffer.CHECKPOINT);
+        checkpoint.setPosition(position);
+        return checkpoint;
+    }
+
+    private Map<Long, Object[]> captureBatch() {
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE rating_statistics"), batchCaptor.capture());
+        return batchCaptor.getValue().stream().collect(Collectors.toMap((row) -> (Long) row[8], (row) -> row));
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.dto.RatingDTO;
+import com.github.dougmab.openvinylboxapi.dto.RatingReconciliationReportDTO;
+import com.github.dougmab.openvinylboxapi.entity.JobCheckpoint;
+import com.github.dougmab.openvinylboxapi.entity.Product;
+import com.github.dougmab.openvinylboxapi.entity.Rating;
+import com.github.dougmab.openvinylboxapi.entity.RatingStatistics;
+import com.github.dougmab.openvinylboxapi.entity.User;
+import com.github.dougmab.openvinylboxapi.repository.JobCheckpointRepository;
+import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import com.github.dougmab.openvinylboxapi.repository.RatingRepository;
+import com.github.dougmab.openvinylboxapi.repository.RatingStatisticsRepository;
+import com.github.dougmab.openvinylboxapi.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Statistics are patched by worker threads in their own transactions, so the database is discarded afterwards
+@SpringBootTest(properties = { "app.rating.reconcile.enabled=true", "app.rating.reconcile.partition-size=2", "app.rating.reconcile.threads=2" })
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class RatingStatisticsReconcilerTests {
+
+    @Autowired
+    private RatingStatisticsReconciler reconciler;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private RatingStatisticsRepository statisticsRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JobCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void reconcileShouldPatchStatisticsThatDriftedFromRatings() {
+        ratingService.addRating(1L, 1L, new RatingDTO((short) 5, null));
+        ratingService.addRating(1L, 2L, new RatingDTO((short) 4, null));
+        ratingService.addRating(1L, 3L, new RatingDTO((short) 4, null));
+        jdbcTemplate.update("UPDATE rating_statistics SET total_ratings = 1, four_stars = 0 WHERE product_id = 1");
+
+        RatingReconciliationReportDTO report = reconciler.reconcile();
+
+        RatingStatistics statistics = statisticsRepository.findByProductId(1L).orElseThrow();
+        assertThat(statistics.getTotalRatings()).isEqualTo(3);
+        assertThat(statistics.getTotalStars()).isEqualTo(13);
+        assertThat(statistics.getFiveStars()).isEqualTo(1);
+        assertThat(statistics.getFourStars()).isEqualTo(2);
+        assertThat(productRepository.findById(1L).orElseThrow().getAverageRating()).isEqualTo(4.3);
+        assertThat(report.getPatched()).isPositive();
+        assertThat(report.getPartitions()).isGreaterThan(1);
+    }
+
+    @Test
+    public void reconcileShouldResumeAfterCheckpoint() {
+        // The rating behind the seeded statistics of product 8
+        rate(8L, 5);
+        jdbcTemplate.update("UPDATE rating_statistics SET total_ratings = 99 WHERE product_id IN (2, 8)");
+        JobCheckpoint checkpoint = new JobCheckpoint(RatingStatisticsReconciler.CHECKPOINT);
+        checkpoint.setPosition(5L);
+        checkpointRepository.save(checkpoint);
+
+        RatingReconciliationReportDTO report = reconciler.reconcile();
+
+        assertThat(report.getFromProductId()).isEqualTo(6L);
+        assertThat(statisticsRepository.findByProductId(2L).orElseThrow().getTotalRatings()).isEqualTo(99);
+        assertThat(statisticsRepository.findByProductId(8L).orElseThrow().getTotalRatings()).isEqualTo(1);
+        assertThat(checkpointRepository.findById(RatingStatisticsReconciler.CHECKPOINT).orElseThrow().getPosition()).isZero();
+    }
+
+    @Test
+    public void reconcileShouldKeepStatisticsThatMatchRatings() {
+        // The ratings behind the seeded statistics of products 11 and 6
+        rate(11L, 5, 4, 4, 2, 2, 2);
+        rate(6L, 5, 4, 4, 4);
+
+        reconciler.reconcile();
+
+        RatingStatistics statistics = statisticsRepository.findByProductId(11L).orElseThrow();
+        assertThat(statistics.getTotalRatings()).isEqualTo(6);
+        assertThat(statistics.getTotalStars()).isEqualTo(19);
+        assertThat(statistics.getFiveStars()).isEqualTo(1);
+        assertThat(statistics.getFourStars()).isEqualTo(2);
+        assertThat(statistics.getTwoStars()).isEqualTo(3);
+        assertThat(statisticsRepository.findByProductId(6L).orElseThrow().getTotalStars()).isEqualTo(17);
+        assertThat(productRepository.findById(11L).orElseThrow().getAverageRating()).isEqualTo(3.2);
+    }
+
+    private void rate(Long productId, int... values) {
+        Product product = productRepository.findById(productId).orElseThrow();
+        for (int i = 0; i < values.length; i++) {
+            User user = userRepository.save(new User(null, "Rating", "Tester", "rater" + productId + "-" + i + "@example.com", "unused"));
+            ratingRepository.save(new Rating(product, user, (short) values[i], null));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimingWheelTests {
+
+    private TimingWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        // 10 ms ticks, one turn every 80 ms
+        wheel = new TimingWheel(10, 8, 0);
+    }
+
+    @Test
+    public void advanceShouldReturnIdsOnceTheirDeadlinePassed() {
+        wheel.schedule(1, 25);
+        wheel.schedule(2, 40);
+
+        assertThat(wheel.advance(29)).isEmpty();
+        assertThat(wheel.advance(30)).containsExactly(1L);
+        assertThat(wheel.advance(50)).containsExactly(2L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void advanceShouldSkipIdsDueInLaterTurnsOfTheWheel() {
+        // Both hash to the same bucket
+        wheel.schedule(1, 20);
+        wheel.schedule(2, 100);
+
+        assertThat(wheel.advance(20)).containsExactly(1L);
+        assertThat(wheel.advance(99)).isEmpty();
+        assertThat(wheel.advance(100)).containsExactly(2L);
+    }
+
+    @Test
+    public void advanceShouldReturnEveryDueIdAfterLongPause() {
+        for (long id = 0; id < 50; id++) wheel.schedule(id, id * 7);
+
+        assertThat(wheel.advance(10_000)).hasSize(50);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void cancelShouldRemoveScheduledId() {
+        wheel.schedule(1, 20);
+        wheel.cancel(1);
+
+        assertThat(wheel.advance(100)).isEmpty();
+    }
+
+    @Test
+    public void scheduleShouldReplacePreviousDeadline() {
+        wheel.schedule(1, 20);
+        wheel.schedule(1, 60);
+
+        assertThat(wheel.advance(50)).isEmpty();
+        assertThat(wheel.advance(60)).containsExactly(1L);
+    }
+
+    @Test
+    public void scheduleShouldMakePassedDeadlineDueOnNextAdvance() {
+        wheel.advance(100);
+        wheel.schedule(1, 0);
+
+        assertThat(wheel.advance(110)).containsExactly(1L);
+    }
+}
@@ -1,21 +1,26 @@
 package com.github.dougmab.openvinylboxapi.service;
 
 import com.github.dougmab.openvinylboxapi.dto.LoginDTO;
+import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
 import com.github.dougmab.openvinylboxapi.entity.User;
 import com.github.dougmab.openvinylboxapi.repository.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@SpringBootTest
+// The test cost is the lowest BCrypt allows, so only a downgrade can be observed
+@SpringBootTest(properties = "app.password.bcrypt-downgrade=true")
 @ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
 public class TokenServiceIntegrationTests {
 
     @Autowired
@@ -45,4 +50,27 @@ public class TokenServiceIntegrationTests {
         assertThat(decodedToken.getIssuedAt()).isNotNull();
 
     }
+
+    @Test
+    public void generateTokenShouldRehashPasswordsOfAnotherCost() throws InterruptedException {
+        User user = EntityFactory.createUser(null);
+        user.setPassword(new BCryptPasswordEncoder(5).encode("Test_123"));
+        user = repository.save(user);
+
+        try {
+            service.generateToken(new LoginDTO(user.getEmail(), "Test_123"));
+
+            // Rehashed in the background
+            String password = user.getPassword();
+            for (int i = 0; i < 50 && password.equals(user.getPassword()); i++) {
+                Thread.sleep(100);
+                password = repository.findById(user.getId()).get().getPassword();
+            }
+
+            assertThat(password).startsWith("$2a$04$");
+            assertThat(service.generateToken(new LoginDTO(user.getEmail(), "Test_123")).getAccessToken()).isNotNull();
+        } finally {
+            repository.deleteById(user.getId());
+        }
+    }
 }
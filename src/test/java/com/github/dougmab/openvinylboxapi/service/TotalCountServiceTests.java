@@ -0,0 +1,150 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.entity.Category;
+import com.github.dougmab.openvinylboxapi.entity.Product;
+import com.github.dougmab.openvinylboxapi.repository.CategoryRepository;
+import com.github.dougmab.openvinylboxapi.repository.ProductRepository;
+import com.github.dougmab.openvinylboxapi.repository.RatingStatisticsRepository;
+import com.github.dougmab.openvinylboxapi.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+public class TotalCountServiceTests {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RatingStatisticsRepository statisticsRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TotalCountService service;
+
+    @BeforeEach
+    void setUp() {
+        when(categoryRepository.count()).thenReturn(12L);
+        when(productRepository.count()).thenReturn(11L);
+
+        service = newService(Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void countOfShouldCountOnceWhileCachedTotalIsFresh() {
+        assertThat(service.countOf(Category.class)).isEqualTo(12L);
+        assertThat(service.countOf(Category.class)).isEqualTo(12L);
+
+        verify(categoryRepository, times(1)).count();
+    }
+
+    @Test
+    public void countOfShouldCountAgainOnceCachedTotalExpired() {
+        // Already expired when loaded
+        service = newService(Duration.ofMillis(-1));
+
+        service.countOf(Category.class);
+        when(categoryRepository.count()).thenReturn(13L);
+
+        assertThat(service.countOf(Category.class)).isEqualTo(13L);
+        verify(categoryRepository, times(2)).count();
+    }
+
+    @Test
+    public void countOfShouldNotCacheCountOfCallerThatWrote() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        service.countOf(Category.class);
+        service.countOf(Category.class);
+        verify(categoryRepository, times(2)).count();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        service.countOf(Category.class);
+        service.countOf(Category.class);
+        verify(categoryRepository, times(3)).count();
+    }
+
+    @Test
+    public void registerInsertShouldIncrementCachedTotalWithoutCounting() {
+        service.countOf(Product.class);
+
+        service.registerInserts(Product.class, 3);
+
+        assertThat(service.countOf(Product.class)).isEqualTo(14L);
+        verify(productRepository, times(1)).count();
+    }
+
+    @Test
+    public void registerInsertShouldWaitForCommit() {
+        service.countOf(Product.class);
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.registerInsert(Product.class);
+        assertThat(service.countOf(Product.class)).isEqualTo(11L);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(service.countOf(Product.class)).isEqualTo(12L);
+    }
+
+    @Test
+    public void registerDeleteShouldDropCachedTotal() {
+        service.countOf(Category.class);
+        when(categoryRepository.count()).thenReturn(11L);
+
+        service.registerDelete(Category.class);
+
+        assertThat(service.countOf(Category.class)).isEqualTo(11L);
+        verify(categoryRepository, times(2)).count();
+    }
+
+    @Test
+    public void countRatingsOfProductShouldReadRatingStatistics() {
+        when(statisticsRepository.findTotalRatingsByProductId(1L)).thenReturn(Optional.of(4));
+        when(statisticsRepository.findTotalRatingsByProductId(2L)).thenReturn(Optional.empty());
+
+        assertThat(service.countRatingsOfProduct(1L)).isEqualTo(4L);
+        assertThat(service.countRatingsOfProduct(2L)).isZero();
+    }
+
+    @Test
+    public void countOfShouldThrowExceptionWhenEntityHasNoCachedTotal() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> service.countOf(String.class));
+    }
+
+    private TotalCountService newService(Duration timeToLive) {
+        return new TotalCountService(categoryRepository, productRepository, userRepository, statisticsRepository,
+                transactionManager, timeToLive);
+    }
+}
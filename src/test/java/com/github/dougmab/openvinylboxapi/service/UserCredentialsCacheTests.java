@@ -0,0 +1,92 @@
+package com.github.dougmab.openvinylboxapi.service;
+
+import com.github.dougmab.openvinylboxapi.config.CacheConfig;
+import com.github.dougmab.openvinylboxapi.dto.LoginDTO;
+import com.github.dougmab.openvinylboxapi.dto.RoleDTO;
+import com.github.dougmab.openvinylboxapi.dto.UserDTO;
+import com.github.dougmab.openvinylboxapi.dto.UserInsertDTO;
+import com.github.dougmab.openvinylboxapi.entity.EntityFactory;
+import com.github.dougmab.openvinylboxapi.entity.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Credentials are only evicted once users are committed, so the database is discarded afterwards
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class UserCredentialsCacheTests {
+
+    @Autowired
+    private UserService service;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private JwtDecoder jwtDecoder;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = cacheManager.getCache(CacheConfig.USER_CREDENTIALS);
+    }
+
+    @Test
+    public void updateShouldEvictOnlyOldAndNewEmailOfUser() {
+        UserDTO user = insertUser();
+        String oldEmail = user.getEmail();
+        service.loadUserByUsername(oldEmail);
+        service.loadUserByUsername("maria@gmail.com");
+
+        user.setEmail(EntityFactory.createUserDTO(null).getEmail());
+        service.update(user.getId(), user);
+
+        assertThat(cache.get(oldEmail)).isNull();
+        assertThat(cache.get("maria@gmail.com")).isNotNull();
+        assertThat(service.loadUserByUsername(user.getEmail()).getUsername()).isEqualTo(user.getEmail());
+    }
+
+    @Test
+    public void updateShouldMakeChangedRolesVisibleOnNextLogin() {
+        UserDTO user = insertUser();
+        assertThat(scopeOfLogin(user.getEmail())).isEqualTo("USER");
+
+        user.getRoles().add(new RoleDTO(1L, Role.Authorities.ADMIN.name()));
+        service.update(user.getId(), user);
+
+        assertThat(scopeOfLogin(user.getEmail()).split(" ")).containsExactlyInAnyOrder("ADMIN", "USER");
+    }
+
+    @Test
+    public void deleteShouldEvictEmailOfUser() {
+        UserDTO user = insertUser();
+        service.loadUserByUsername(user.getEmail());
+
+        service.delete(user.getId());
+
+        assertThat(cache.get(user.getEmail())).isNull();
+    }
+
+    private UserDTO insertUser() {
+        UserDTO dto = EntityFactory.createUserDTO(null);
+        return service.insert(new UserInsertDTO(null, dto.getFirstName(), dto.getLastName(), dto.getEmail(), "Test_123"));
+    }
+
+    private String scopeOfLogin(String email) {
+        String token = tokenService.generateToken(new LoginDTO(email, "Test_123")).getAccessToken();
+        return jwtDecoder.decode(token).getClaimAsString("scope");
+    }
+}
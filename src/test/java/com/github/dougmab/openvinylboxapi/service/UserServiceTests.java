@@ -16,7 +16,6 @@ import org.mockito.Mock;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.List;
@@ -40,7 +39,13 @@ public class UserServiceTests {
     private RoleRepository roleRepository;
 
     @Mock
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHashingService hashingService;
+
+    @Mock
+    private TotalCountService totalCountService;
+
+    @Mock
+    private UserCredentialsService credentialsService;
 
     private Long existingId;
     private Long nonExistingId;
@@ -58,7 +63,8 @@ public class UserServiceTests {
                 EntityFactory.createUser(2L),
                 EntityFactory.createUser(3L)));
 
-        when(repository.findAll(any(Pageable.class))).thenReturn(page);
+        when(repository.findSliceBy(any(Pageable.class))).thenReturn(page);
+        when(totalCountService.countOf(User.class)).thenReturn(3L);
         when(repository.findById(existingId)).thenReturn(Optional.of(EntityFactory.createUser(existingId)));
         when(repository.findById(nonExistingId)).thenReturn(Optional.empty());
         when(repository.getReferenceById(existingId)).thenReturn(EntityFactory.createUser(existingId));
@@ -77,7 +83,7 @@ public class UserServiceTests {
         when(roleRepository.getReferenceById(1L)).thenReturn(new Role(1L, "ADMIN"));
         when(roleRepository.getReferenceById(2L)).thenReturn(new Role(2L, "USER"));
 
-        when(passwordEncoder.encode(anyString())).thenReturn("$2a$10$u06mL5aQs7J8lbnMWuIulu1zwW2.Pf.ESkAt/jPkDrTbPN12u2eHe");
+        when(hashingService.encode(anyString())).thenReturn("$2a$10$u06mL5aQs7J8lbnMWuIulu1zwW2.Pf.ESkAt/jPkDrTbPN12u2eHe");
     }
 
     @Test